@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2020 Lewys Davies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.lewdev.probabilitylib;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Alias table for selecting a weighted index in constant time (Vose's method).
+ * <br>
+ * <br>
+ * <b>Selection Algorithm Implementation</b>:
+ * <p>
+ * <ul>
+ * <li>Every index is given a column of equal height, the total probability
+ * <li>Each column is filled by its own index up to a threshold, and the rest
+ * of the column is "aliased" to a single other index
+ * <li>A random column is selected, then a random height within that column
+ * <li>If the height is below the threshold the column's own index is selected,
+ * otherwise its alias is selected
+ * </p>
+ * </ul>
+ * Weights are scaled by the number of indexes, so thresholds are exact
+ * integers and no floating point error is introduced.
+ */
+final class AliasTable {
+    private int[] threshold;
+    private int[] alias;
+    private int size;
+    private int totalProbability;
+
+    // Working space kept between builds by a reusable table, null otherwise
+    private long[] scaled;
+    private int[] worklist;
+
+    /**
+     * Create a new, empty alias table that is filled by {@link #build}, reusing
+     * its arrays each time
+     */
+    AliasTable() {
+        this.threshold = new int[0];
+        this.alias = new int[0];
+        this.scaled = new long[0];
+        this.worklist = new int[0];
+    }
+
+    /**
+     * Build a new alias table in O(n)
+     *
+     * @param weights          probability share of each index. All greater than 0.
+     * @param size             number of weights to use, starting at index 0
+     * @param totalProbability sum of the first size weights
+     */
+    AliasTable(int[] weights, int size, int totalProbability) {
+        this.threshold = new int[size];
+        this.alias = new int[size];
+        this.fill(weights, size, totalProbability, new long[size], new int[size]);
+    }
+
+    /**
+     * Lay out this table again in O(n), only allocating if it has to grow
+     *
+     * @param weights          probability share of each index. All greater than 0.
+     * @param size             number of weights to use, starting at index 0
+     * @param totalProbability sum of the first size weights
+     */
+    void build(int[] weights, int size, int totalProbability) {
+        if (this.threshold.length < size) {
+            int capacity = Math.max(size, this.threshold.length * 2);
+            this.threshold = new int[capacity];
+            this.alias = new int[capacity];
+            this.scaled = new long[capacity];
+            this.worklist = new int[capacity];
+        }
+        this.fill(weights, size, totalProbability, this.scaled, this.worklist);
+    }
+
+    private void fill(int[] weights, int size, int totalProbability, long[] scaled, int[] worklist) {
+        int[] threshold = this.threshold;
+        int[] alias = this.alias;
+        this.size = size;
+        this.totalProbability = totalProbability;
+
+        // Small columns are stacked from the start of the worklist, large ones from the
+        // end. Every index is in exactly one of them, so they never overlap.
+        int smallCount = 0;
+        int largeStart = size;
+
+        // Every weight is scaled by size, so the average column height is exactly totalProbability
+        for (int i = 0; i < size; i++) {
+            scaled[i] = (long) weights[i] * size;
+            if (scaled[i] < totalProbability) {
+                worklist[smallCount++] = i;
+            } else {
+                worklist[--largeStart] = i;
+            }
+        }
+
+        while (smallCount > 0 && largeStart < size) {
+            int less = worklist[--smallCount];
+            int more = worklist[largeStart++];
+
+            threshold[less] = (int) scaled[less];
+            alias[less] = more;
+
+            // The larger column donates whatever the smaller column is missing
+            scaled[more] = scaled[more] + scaled[less] - totalProbability;
+            if (scaled[more] < totalProbability) {
+                worklist[smallCount++] = more;
+            } else {
+                worklist[--largeStart] = more;
+            }
+        }
+
+        // Anything left over fills its column entirely
+        while (largeStart < size) {
+            int index = worklist[largeStart++];
+            threshold[index] = totalProbability;
+            alias[index] = index;
+        }
+        while (smallCount > 0) {
+            int index = worklist[--smallCount];
+            threshold[index] = totalProbability;
+            alias[index] = index;
+        }
+    }
+
+    /**
+     * Select a random index, based on probability.
+     *
+     * @param random Random number generator that returns a random number between 0 and n-1
+     * @return Selected index, between 0 and size-1
+     */
+    int sample(IntUnaryOperator random) {
+        int column = random.applyAsInt(this.size);
+        if (random.applyAsInt(this.totalProbability) < this.threshold[column]) {
+            return column;
+        }
+        return this.alias[column];
+    }
+
+    /**
+     * Recover the probability share of every index the table was built from, in
+     * O(n). Exact, as every column is laid out in integers: an index's share,
+     * scaled by size, is its own part of its column plus the part of every
+     * column aliased to it.
+     *
+     * @return Probability share of each index
+     */
+    int[] weights() {
+        long[] scaled = new long[this.size];
+        for (int i = 0; i < this.size; i++) {
+            scaled[i] += this.threshold[i];
+            scaled[this.alias[i]] += this.totalProbability - this.threshold[i];
+        }
+
+        int[] weights = new int[this.size];
+        for (int i = 0; i < this.size; i++) {
+            weights[i] = (int) (scaled[i] / this.size);
+        }
+        return weights;
+    }
+
+    /**
+     * Get the number of indexes in this table
+     *
+     * @return Number of indexes
+     */
+    int size() {
+        return this.size;
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2020 Lewys Davies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.lewdev.probabilitylib;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Random variates for counting how many of many gets select one element,
+ * without making each get.
+ * <p>
+ * Binomial variates use inversion by waiting times when few successes are
+ * expected, and Hormann's transformed rejection with squeeze (BTRS) otherwise,
+ * so each variate takes O(1) expected time for up to 2^50 trials. Rejection
+ * works on doubles, which only count successes exactly up to 2^53, so larger
+ * variates are summed from independent ones of at most 2^50 trials, in
+ * O(trials / 2^50) expected time.
+ */
+final class Binomial {
+    // Below this many expected successes, inversion is faster than rejection
+    private static final double INVERSION_LIMIT = 10;
+    // Most trials drawn by one variate, well within the integers a double holds exactly
+    static final long MAX_TRIALS = 1L << 50;
+
+    // Stirling series tail, log(k!) - [(k + 0.5) log(k + 1) - (k + 1) + log(2 pi) / 2], for k <= 9
+    private static final double[] STIRLING_TAIL = {
+            0.0810614667953272, 0.0413406959554092, 0.0276779256849983, 0.02079067210376509,
+            0.0166446911898211, 0.0138761288230707, 0.0118967099458917, 0.0104112652619720,
+            0.00925546218271273, 0.00833056343336287
+    };
+
+    private Binomial() {
+    }
+
+    /**
+     * Split a number of gets between every element, based on probability, by
+     * sequential conditional binomials. O(k) expected, for k elements.
+     *
+     * @param probabilities    probability share of each element
+     * @param size             number of elements
+     * @param totalProbability sum of the first size probabilities. Must be greater than 0.
+     * @param count            number of gets. Must be 0 or greater.
+     * @param random           Random number generator that returns a random number between 0 and n-1
+     * @return Number of times each element was selected, summing to count
+     */
+    static long[] multinomial(int[] probabilities, int size, long totalProbability, long count, IntUnaryOperator random) {
+        long[] counts = new long[size];
+        long remainingCount = count;
+        long remainingProbability = totalProbability;
+
+        for (int i = 0; i < size && remainingCount > 0; i++) {
+            if (probabilities[i] >= remainingProbability) {
+                counts[i] = remainingCount;
+                break;
+            }
+
+            // Given everything before this element, the rest of the gets are binomial
+            counts[i] = sample(remainingCount, probabilities[i] / (double) remainingProbability, random);
+            remainingCount -= counts[i];
+            remainingProbability -= probabilities[i];
+        }
+
+        return counts;
+    }
+
+    /**
+     * Get the number of successes in a number of trials
+     *
+     * @param trials      number of trials. Must be 0 or greater.
+     * @param probability chance of success of each trial, between 0 and 1
+     * @param random      Random number generator that returns a random number between 0 and n-1
+     * @return Number of successes, between 0 and trials
+     */
+    static long sample(long trials, double probability, IntUnaryOperator random) {
+        if (trials == 0 || probability <= 0) {
+            return 0;
+        }
+        if (probability >= 1) {
+            return trials;
+        }
+
+        // The sum of independent binomials with the same probability is binomial
+        if (trials > MAX_TRIALS) {
+            long successes = 0;
+            for (long remaining = trials; remaining > 0; remaining -= MAX_TRIALS) {
+                successes += sample(Math.min(remaining, MAX_TRIALS), probability, random);
+            }
+            return successes;
+        }
+
+        // Both algorithms expect p <= 0.5
+        if (probability > 0.5) {
+            return trials - sample(trials, 1 - probability, random);
+        }
+
+        if (trials * probability < INVERSION_LIMIT) {
+            return inversion(trials, probability, random);
+        }
+        return transformedRejection(trials, probability, random);
+    }
+
+    /**
+     * Get a uniformly distributed double with 53 random bits
+     *
+     * @param random Random number generator that returns a random number between 0 and n-1
+     * @return Random number in [0, 1)
+     */
+    static double nextDouble(IntUnaryOperator random) {
+        long high = random.applyAsInt(1 << 26);
+        long low = random.applyAsInt(1 << 27);
+        return ((high << 27) | low) * 0x1.0p-53;
+    }
+
+    /**
+     * Count successes by summing geometric waiting times until they pass the
+     * number of trials. O(trials * probability) expected.
+     */
+    private static long inversion(long trials, double probability, IntUnaryOperator random) {
+        double logFailure = Math.log1p(-probability);
+        long successes = 0;
+        double waited = 0;
+
+        while (true) {
+            // Trials up to and including the next success. 1 - nextDouble is never 0
+            waited += Math.max(1, Math.ceil(Math.log(1 - nextDouble(random)) / logFailure));
+            if (waited > trials) {
+                return successes;
+            }
+            successes++;
+        }
+    }
+
+    /**
+     * Hormann's BTRS, for trials * probability >= 10 and probability <= 0.5
+     */
+    private static long transformedRejection(long trials, double probability, IntUnaryOperator random) {
+        double n = trials;
+        double stddev = Math.sqrt(n * probability * (1 - probability));
+        double b = 1.15 + 2.53 * stddev;
+        double a = -0.0873 + 0.0248 * b + 0.01 * probability;
+        double c = n * probability + 0.5;
+        double vr = 0.92 - 4.2 / b;
+        double r = probability / (1 - probability);
+        double alpha = (2.83 + 5.1 / b) * stddev;
+        double m = Math.floor((n + 1) * probability);
+
+        while (true) {
+            double u = nextDouble(random) - 0.5;
+            double v = nextDouble(random);
+            double us = 0.5 - Math.abs(u);
+            double k = Math.floor((2 * a / us + b) * u + c);
+
+            // Squeeze, accepts most variates without any logs
+            if (us >= 0.07 && v <= vr) {
+                return (long) k;
+            }
+            if (k < 0 || k > n) {
+                continue;
+            }
+
+            // log(f(k) / f(m)), kept in terms of k - m as the ratios are near 1 and
+            // would otherwise lose about n * 2^-53 to rounding before being scaled by n
+            double lhs = Math.log(v * alpha / (a / (us * us) + b));
+            double d = k - m;
+            double rhs = -(n - m + 0.5) * Math.log1p(-d / (n - m + 1))
+                    - (m + 0.5) * Math.log1p(d / (m + 1))
+                    - d * Math.log((k + 1) / (r * (n - k + 1)))
+                    + stirlingTail(m) + stirlingTail(n - m) - stirlingTail(k) - stirlingTail(n - k);
+            if (lhs <= rhs) {
+                return (long) k;
+            }
+        }
+    }
+
+    private static double stirlingTail(double k) {
+        if (k <= 9) {
+            return STIRLING_TAIL[(int) k];
+        }
+        double kp1sq = (k + 1) * (k + 1);
+        return (1.0 / 12 - (1.0 / 360 - 1.0 / 1260 / kp1sq) / kp1sq) / (k + 1);
+    }
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright (c) 2020 Lewys Davies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.lewdev.probabilitylib;
+
+import com.lewdev.probabilitylib.ProbabilityCollection.ProbabilitySetElement;
+
+import java.util.*;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Thread safe ProbabilityCollection for collections that are read far more
+ * often than they are modified.
+ * <p>
+ * Readers select from an immutable snapshot of the collection, with its
+ * "blocks" already laid out in an {@link AliasTable}, so get is O(1) and never
+ * locks. Writers are serialised, and every add, remove or clear copies the
+ * snapshot and publishes a new one, in O(n).
+ * <p>
+ * Iterators, size and contains all see the snapshot that was published when
+ * they were called, and never reflect later modifications.
+ *
+ * @param <E> Type of elements
+ */
+public final class ConcurrentProbabilityCollection<E> {
+    private final IntUnaryOperator randomOperator;
+    private final Object writeLock = new Object();
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    /**
+     * Create a new ConcurrentProbabilityCollection with a custom random number generator
+     *
+     * @param randomNumberGenerator Thread safe random number generator that returns a random number between 0 and n-1,
+     *                              such as {@link PerThreadRandom}
+     */
+    public ConcurrentProbabilityCollection(IntUnaryOperator randomNumberGenerator) {
+        this.randomOperator = randomNumberGenerator;
+    }
+
+    /**
+     * Create a new ConcurrentProbabilityCollection where every thread draws from {@link java.util.concurrent.ThreadLocalRandom}
+     */
+    public ConcurrentProbabilityCollection() {
+        this(new PerThreadRandom());
+    }
+
+    /**
+     * Create a new ConcurrentProbabilityCollection where every thread draws from its own
+     * generator, split from one seeded generator
+     *
+     * @param seed Seed for random number generator
+     * @see PerThreadRandom#PerThreadRandom(long)
+     */
+    public ConcurrentProbabilityCollection(long seed) {
+        this(new PerThreadRandom(seed));
+    }
+
+    /**
+     * Get the total of objects in this collection
+     *
+     * @return Number of objects inside the collection
+     */
+    public int size() {
+        return this.snapshot.objects.length;
+    }
+
+    /**
+     * Check if collection is empty
+     *
+     * @return True if collection contains no elements, else False
+     */
+    public boolean isEmpty() {
+        return this.snapshot.objects.length == 0;
+    }
+
+    /**
+     * Check if collection contains an object
+     *
+     * @return True if collection contains the object, else False
+     * @throws IllegalArgumentException if object is null
+     */
+    public boolean contains(E object) {
+        if (object == null) {
+            throw new IllegalArgumentException("Cannot check if null object is contained in this collection");
+        }
+
+        for (Object entry : this.snapshot.objects) {
+            if (entry.equals(object)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the iterator for the current snapshot of this collection
+     *
+     * @return Iterator over this collection
+     */
+    public Iterator<ProbabilitySetElement<E>> iterator() {
+        final Snapshot current = this.snapshot;
+
+        return new Iterator<ProbabilitySetElement<E>>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return this.index < current.objects.length;
+            }
+
+            @Override
+            public ProbabilitySetElement<E> next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                @SuppressWarnings("unchecked")
+                E object = (E) current.objects[this.index];
+                return new ProbabilitySetElement<>(object, current.probabilities[this.index++]);
+            }
+        };
+    }
+
+    /**
+     * Add an object to this collection, in O(n)
+     *
+     * @param object      object. Not null.
+     * @param probability share. Must be greater than 0.
+     * @throws IllegalArgumentException if object is null
+     * @throws IllegalArgumentException if probability <= 0
+     * @throws IllegalArgumentException if the total probability would exceed Integer.MAX_VALUE
+     */
+    public void add(E object, int probability) {
+        if (object == null) {
+            throw new IllegalArgumentException("Cannot add null object");
+        }
+
+        if (probability <= 0) {
+            throw new IllegalArgumentException("Probability must be greater than 0");
+        }
+
+        synchronized (this.writeLock) {
+            Snapshot current = this.snapshot;
+            if (probability > Integer.MAX_VALUE - current.totalProbability) {
+                throw new IllegalArgumentException("Total probability cannot exceed Integer.MAX_VALUE");
+            }
+
+            int size = current.objects.length;
+
+            Object[] objects = Arrays.copyOf(current.objects, size + 1);
+            int[] probabilities = Arrays.copyOf(current.probabilities, size + 1);
+            objects[size] = object;
+            probabilities[size] = probability;
+
+            this.snapshot = new Snapshot(objects, probabilities, current.totalProbability + probability);
+        }
+    }
+
+    /**
+     * Remove an object from this collection, in O(n)
+     *
+     * @param object object
+     * @return True if object was removed, else False.
+     * @throws IllegalArgumentException if object is null
+     */
+    public boolean remove(E object) {
+        if (object == null) {
+            throw new IllegalArgumentException("Cannot remove null object");
+        }
+
+        synchronized (this.writeLock) {
+            Snapshot current = this.snapshot;
+            int size = current.objects.length;
+
+            Object[] objects = new Object[size];
+            int[] probabilities = new int[size];
+            int totalProbability = current.totalProbability;
+
+            // Remove all instances of the object
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (current.objects[i].equals(object)) {
+                    totalProbability -= current.probabilities[i];
+                } else {
+                    objects[kept] = current.objects[i];
+                    probabilities[kept] = current.probabilities[i];
+                    kept++;
+                }
+            }
+
+            if (kept == size) {
+                return false;
+            }
+
+            this.snapshot = new Snapshot(Arrays.copyOf(objects, kept), Arrays.copyOf(probabilities, kept), totalProbability);
+            return true;
+        }
+    }
+
+    /**
+     * Remove all objects from this collection
+     */
+    public void clear() {
+        synchronized (this.writeLock) {
+            this.snapshot = Snapshot.EMPTY;
+        }
+    }
+
+    /**
+     * Get a random object from this collection, based on probability, in O(1).
+     * Never blocks.
+     *
+     * @return <E> Random object
+     * @throws IllegalStateException if this collection is empty
+     */
+    public E get() {
+        Snapshot current = this.snapshot;
+        if (current.objects.length == 0) {
+            throw new IllegalStateException("Cannot get an object out of a empty collection");
+        }
+
+        @SuppressWarnings("unchecked")
+        E object = (E) current.objects[current.aliasTable.sample(this.randomOperator)];
+        return object;
+    }
+
+    /**
+     * Get many random objects from this collection, based on probability.
+     * Every object is selected from the same snapshot.
+     *
+     * @param count number of objects to get. Must be 0 or greater.
+     * @return List of count random objects, in the order they were selected
+     * @throws IllegalArgumentException if count < 0
+     * @throws IllegalStateException if this collection is empty
+     */
+    public List<E> get(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count cannot be negative");
+        }
+
+        @SuppressWarnings("unchecked")
+        E[] objects = (E[]) new Object[count];
+        return Arrays.asList(this.get(objects));
+    }
+
+    /**
+     * Fill an array with random objects from this collection, based on probability.
+     * Every object is selected from the same snapshot.
+     *
+     * @param out array to fill. Not null.
+     * @return The same array, filled
+     * @throws IllegalArgumentException if out is null
+     * @throws IllegalStateException if this collection is empty
+     */
+    public E[] get(E[] out) {
+        if (out == null) {
+            throw new IllegalArgumentException("Cannot fill a null array");
+        }
+
+        Snapshot current = this.snapshot;
+        if (current.objects.length == 0) {
+            throw new IllegalStateException("Cannot get an object out of a empty collection");
+        }
+
+        Object[] objects = current.objects;
+        AliasTable aliasTable = current.aliasTable;
+        for (int i = 0; i < out.length; i++) {
+            @SuppressWarnings("unchecked")
+            E object = (E) objects[aliasTable.sample(this.randomOperator)];
+            out[i] = object;
+        }
+        return out;
+    }
+
+    /**
+     * Get the total probability of all elements in this collection
+     *
+     * @return Sum of all element's probability
+     */
+    public int getTotalProbability() {
+        return this.snapshot.totalProbability;
+    }
+
+    /**
+     * Immutable state of the collection, safe to read from any thread once published
+     */
+    private static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(new Object[0], new int[0], 0);
+
+        private final Object[] objects;
+        private final int[] probabilities;
+        private final int totalProbability;
+        private final AliasTable aliasTable;
+
+        private Snapshot(Object[] objects, int[] probabilities, int totalProbability) {
+            this.objects = objects;
+            this.probabilities = probabilities;
+            this.totalProbability = totalProbability;
+            this.aliasTable = objects.length == 0 ? null : new AliasTable(probabilities, objects.length, totalProbability);
+        }
+    }
+}
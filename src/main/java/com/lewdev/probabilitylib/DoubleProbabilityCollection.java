@@ -0,0 +1,382 @@
+/*
+ * Copyright (c) 2020 Lewys Davies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.lewdev.probabilitylib;
+
+import java.util.*;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * ProbabilityCollection with double probability shares, for weights that do not
+ * scale cleanly to ints.
+ * <br>
+ * <br>
+ * <b>Selection Algorithm Implementation</b>:
+ * <p>
+ * <ul>
+ * <li>Elements have a "block" of space, sized based on their probability share
+ * <li>The end of every "block" is cached as a double, and stays valid for as
+ * long as elements are only being added
+ * <li>A random double is selected between 0 and the total probability, by
+ * multiplying a uniform double in [0, 1) by the total
+ * <li>The "block" the random number falls in is found with a binary search, O(log n)
+ * </p>
+ * </ul>
+ * The total used for selection is the end of the last "block", so selection
+ * never falls outside of the "blocks" whatever the rounding.
+ *
+ * @param <E> Type of elements
+ */
+public final class DoubleProbabilityCollection<E> {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final IntUnaryOperator randomOperator;
+    private double totalProbability = 0;
+
+    private Object[] objects = new Object[DEFAULT_CAPACITY];
+    private double[] probabilities = new double[DEFAULT_CAPACITY];
+    private int size = 0;
+
+    // End of each "block", exclusive. Only valid below validBlocks
+    private double[] blockEnds = new double[DEFAULT_CAPACITY];
+    private int validBlocks = 0;
+
+    /**
+     * Create a new DoubleProbabilityCollection with a custom random number generator
+     *
+     * @param randomNumberGenerator Random number generator that returns a random number between 0 and n-1
+     */
+    public DoubleProbabilityCollection(IntUnaryOperator randomNumberGenerator) {
+        this.randomOperator = randomNumberGenerator;
+    }
+
+    private DoubleProbabilityCollection(SplittableRandom random) {
+        this(random::nextInt);
+    }
+
+    /**
+     * Create a new DoubleProbabilityCollection with a default random number generator
+     */
+    public DoubleProbabilityCollection() {
+        this(new SplittableRandom());
+    }
+
+    /**
+     * Create a new DoubleProbabilityCollection with a default random number generator
+     *
+     * @param seed Seed for random number generator
+     */
+    public DoubleProbabilityCollection(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    /**
+     * Get the total of objects in this collection
+     *
+     * @return Number of objects inside the collection
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Check if collection is empty
+     *
+     * @return True if collection contains no elements, else False
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Check if collection contains an object
+     *
+     * @return True if collection contains the object, else False
+     * @throws IllegalArgumentException if object is null
+     */
+    public boolean contains(E object) {
+        if (object == null) {
+            throw new IllegalArgumentException("Cannot check if null object is contained in this collection");
+        }
+
+        for (int i = 0; i < this.size; i++) {
+            if (this.objects[i].equals(object)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the iterator for this collection
+     *
+     * @return Iterator over this collection
+     */
+    public Iterator<ProbabilitySetElement<E>> iterator() {
+        return new Iterator<ProbabilitySetElement<E>>() {
+            private int index = 0;
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return this.index < size;
+            }
+
+            @Override
+            public ProbabilitySetElement<E> next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                this.last = this.index++;
+
+                @SuppressWarnings("unchecked")
+                E object = (E) objects[this.last];
+                return new ProbabilitySetElement<>(object, probabilities[this.last]);
+            }
+
+            @Override
+            public void remove() {
+                if (this.last < 0) {
+                    throw new IllegalStateException();
+                }
+
+                removeIndex(this.last);
+                this.index = this.last;
+                this.last = -1;
+            }
+        };
+    }
+
+    /**
+     * Add an object to this collection
+     *
+     * @param object      object. Not null.
+     * @param probability share. Must be greater than 0 and finite.
+     * @throws IllegalArgumentException if object is null
+     * @throws IllegalArgumentException if probability is not greater than 0, or not finite
+     * @throws IllegalArgumentException if the total probability would not be finite
+     */
+    public void add(E object, double probability) {
+        if (object == null) {
+            throw new IllegalArgumentException("Cannot add null object");
+        }
+
+        if (!(probability > 0) || Double.isInfinite(probability)) {
+            throw new IllegalArgumentException("Probability must be greater than 0 and finite");
+        }
+
+        if (Double.isInfinite(this.totalProbability + probability)) {
+            throw new IllegalArgumentException("Total probability must be finite");
+        }
+
+        if (this.size == this.objects.length) {
+            this.grow();
+        }
+
+        this.objects[this.size] = object;
+        this.probabilities[this.size] = probability;
+        this.size++;
+        this.totalProbability += probability;
+    }
+
+    /**
+     * Remove an object from this collection
+     *
+     * @param object object
+     * @return True if object was removed, else False.
+     * @throws IllegalArgumentException if object is null
+     */
+    public boolean remove(E object) {
+        if (object == null) {
+            throw new IllegalArgumentException("Cannot remove null object");
+        }
+
+        // Remove all instances of the object, compacting the rest in one pass
+        int kept = 0;
+        int firstRemoved = -1;
+        for (int i = 0; i < this.size; i++) {
+            if (this.objects[i].equals(object)) {
+                if (firstRemoved < 0) {
+                    firstRemoved = i;
+                }
+            } else {
+                this.objects[kept] = this.objects[i];
+                this.probabilities[kept] = this.probabilities[i];
+                kept++;
+            }
+        }
+
+        if (firstRemoved < 0) {
+            return false;
+        }
+
+        Arrays.fill(this.objects, kept, this.size, null);
+        this.size = kept;
+        this.modified(firstRemoved);
+        return true;
+    }
+
+    /**
+     * Remove all objects from this collection
+     */
+    public void clear() {
+        Arrays.fill(this.objects, 0, this.size, null);
+        this.size = 0;
+        this.modified(0);
+    }
+
+    /**
+     * Get a random object from this collection, based on probability.
+     *
+     * @return <E> Random object
+     * @throws IllegalStateException if this collection is empty
+     */
+    public E get() {
+        if (this.isEmpty()) {
+            throw new IllegalStateException("Cannot get an object out of a empty collection");
+        }
+
+        int size = this.size;
+        double[] blockEnds = this.updateBlockEnds();
+        double offset = Binomial.nextDouble(this.randomOperator) * blockEnds[size - 1];
+
+        // Find the first "block" that ends after the random number
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (blockEnds[mid] > offset) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        E object = (E) this.objects[low];
+        return object;
+    }
+
+    /**
+     * Get the total probability of all elements in this collection
+     *
+     * @return Sum of all element's probability
+     */
+    public double getTotalProbability() {
+        return this.totalProbability;
+    }
+
+    /**
+     * Recalculate the end of every "block" from the first invalid one
+     *
+     * @return End of every "block"
+     */
+    private double[] updateBlockEnds() {
+        double end = this.validBlocks == 0 ? 0 : this.blockEnds[this.validBlocks - 1];
+        for (int i = this.validBlocks; i < this.size; i++) {
+            end += this.probabilities[i];
+            this.blockEnds[i] = end;
+        }
+        this.validBlocks = this.size;
+        return this.blockEnds;
+    }
+
+    /**
+     * Invalidate the cached "blocks" after the collection has been modified, and
+     * sum the total probability again so rounding errors do not build up
+     *
+     * @param fromIndex first index whose probability, or position, changed
+     */
+    private void modified(int fromIndex) {
+        this.validBlocks = Math.min(this.validBlocks, fromIndex);
+
+        double total = 0;
+        for (int i = 0; i < this.size; i++) {
+            total += this.probabilities[i];
+        }
+        this.totalProbability = total;
+    }
+
+    /**
+     * Remove the element at an index, keeping the order of the rest
+     *
+     * @param index index of the element
+     */
+    private void removeIndex(int index) {
+        int moved = this.size - index - 1;
+        System.arraycopy(this.objects, index + 1, this.objects, index, moved);
+        System.arraycopy(this.probabilities, index + 1, this.probabilities, index, moved);
+
+        this.objects[--this.size] = null;
+        this.modified(index);
+    }
+
+    /**
+     * Double the capacity of the backing arrays
+     */
+    private void grow() {
+        int capacity = this.objects.length * 2;
+        this.objects = Arrays.copyOf(this.objects, capacity);
+        this.probabilities = Arrays.copyOf(this.probabilities, capacity);
+        this.blockEnds = Arrays.copyOf(this.blockEnds, capacity);
+    }
+
+    /**
+     * Information about an object's state in a collection.
+     * Specifically, the object and its probability share within the collection.
+     *
+     * @param <T> Type of element
+     */
+    public static final class ProbabilitySetElement<T> {
+        private final T object;
+        private final double probability;
+
+        /**
+         * Create a new pair of object and probability
+         *
+         * @param object      object
+         * @param probability share within the collection
+         */
+        ProbabilitySetElement(T object, double probability) {
+            this.object = object;
+            this.probability = probability;
+        }
+
+        /**
+         * Get the object
+         *
+         * @return <T> The actual object
+         */
+        public T getObject() {
+            return this.object;
+        }
+
+        /**
+         * Get the probability share of this object
+         *
+         * @return Probability share in this collection
+         */
+        public double getProbability() {
+            return this.probability;
+        }
+    }
+}
@@ -0,0 +1,540 @@
+/*
+ * Copyright (c) 2020 Lewys Davies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.lewdev.probabilitylib;
+
+import com.lewdev.probabilitylib.ProbabilityCollection.ProbabilitySetElement;
+
+import java.util.*;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * ProbabilityCollection for pools that are modified as often as they are read.
+ * <br>
+ * <br>
+ * <b>Selection Algorithm Implementation</b>:
+ * <p>
+ * <ul>
+ * <li>Elements have a "block" of space, sized based on their probability share
+ * <li>"Blocks" are stored in a {@link FenwickTree}, so the end of every "block"
+ * can be found without summing all the "blocks" before it
+ * <li>A random number is selected between 1 and the total probability
+ * <li>The tree is descended to find which "block" the random number falls in
+ * </p>
+ * </ul>
+ * add, remove and get are all O(log n). Removed elements leave an empty "block"
+ * that is reused by the next add, so element order is not preserved.
+ * <p>
+ * {@link #getAndRemove()} and {@link #getAndDecrement(int)} draw an element and
+ * remove or shrink only that one entry, also in O(log n), for pools that are
+ * depleted as they are drawn from.
+ *
+ * @param <E> Type of elements
+ */
+public final class DynamicProbabilityCollection<E> {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final IntUnaryOperator randomOperator;
+    private final FenwickTree tree = new FenwickTree(DEFAULT_CAPACITY);
+    // First slot of every object, further duplicates are chained through nextSlot and previousSlot
+    private final Map<E, Integer> firstSlot = new HashMap<>();
+
+    private Object[] objects = new Object[DEFAULT_CAPACITY];
+    private int[] probabilities = new int[DEFAULT_CAPACITY];
+    private int[] nextSlot = new int[DEFAULT_CAPACITY];
+    private int[] previousSlot = new int[DEFAULT_CAPACITY];
+    private int[] freeSlots = new int[DEFAULT_CAPACITY];
+    private int freeCount = 0;
+    private int usedSlots = 0;
+
+    private int size = 0;
+    private int totalProbability = 0;
+
+    /**
+     * Create a new DynamicProbabilityCollection with a custom random number generator
+     *
+     * @param randomNumberGenerator Random number generator that returns a random number between 0 and n-1
+     */
+    public DynamicProbabilityCollection(IntUnaryOperator randomNumberGenerator) {
+        this.randomOperator = randomNumberGenerator;
+    }
+
+    private DynamicProbabilityCollection(SplittableRandom random) {
+        this(random::nextInt);
+    }
+
+    /**
+     * Create a new DynamicProbabilityCollection with a default random number generator
+     */
+    public DynamicProbabilityCollection() {
+        this(new SplittableRandom());
+    }
+
+    /**
+     * Create a new DynamicProbabilityCollection with a default random number generator
+     *
+     * @param seed Seed for random number generator
+     */
+    public DynamicProbabilityCollection(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    /**
+     * Get the total of objects in this collection
+     *
+     * @return Number of objects inside the collection
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Check if collection is empty
+     *
+     * @return True if collection contains no elements, else False
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Check if collection contains an object
+     *
+     * @return True if collection contains the object, else False
+     * @throws IllegalArgumentException if object is null
+     */
+    public boolean contains(E object) {
+        if (object == null) {
+            throw new IllegalArgumentException("Cannot check if null object is contained in this collection");
+        }
+
+        return this.firstSlot.containsKey(object);
+    }
+
+    /**
+     * Get the iterator for this collection
+     *
+     * @return Iterator over this collection
+     */
+    public Iterator<ProbabilitySetElement<E>> iterator() {
+        return new Iterator<ProbabilitySetElement<E>>() {
+            private int slot = this.nextUsed(0);
+
+            private int nextUsed(int from) {
+                int i = from;
+                while (i < usedSlots && probabilities[i] == 0) {
+                    i++;
+                }
+                return i;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return this.slot < usedSlots;
+            }
+
+            @Override
+            public ProbabilitySetElement<E> next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                @SuppressWarnings("unchecked")
+                E object = (E) objects[this.slot];
+                ProbabilitySetElement<E> entry = new ProbabilitySetElement<>(object, probabilities[this.slot]);
+                this.slot = this.nextUsed(this.slot + 1);
+                return entry;
+            }
+        };
+    }
+
+    /**
+     * Add an object to this collection, in O(log n)
+     *
+     * @param object      object. Not null.
+     * @param probability share. Must be greater than 0.
+     * @throws IllegalArgumentException if object is null
+     * @throws IllegalArgumentException if probability <= 0
+     * @throws IllegalArgumentException if the total probability would exceed Integer.MAX_VALUE
+     */
+    public void add(E object, int probability) {
+        if (object == null) {
+            throw new IllegalArgumentException("Cannot add null object");
+        }
+
+        if (probability <= 0) {
+            throw new IllegalArgumentException("Probability must be greater than 0");
+        }
+
+        if (probability > Integer.MAX_VALUE - this.totalProbability) {
+            throw new IllegalArgumentException("Total probability cannot exceed Integer.MAX_VALUE");
+        }
+
+        int slot;
+        if (this.freeCount > 0) {
+            slot = this.freeSlots[--this.freeCount];
+        } else {
+            if (this.usedSlots == this.objects.length) {
+                this.grow();
+            }
+            slot = this.usedSlots++;
+        }
+
+        Integer first = this.firstSlot.put(object, slot);
+        this.nextSlot[slot] = first == null ? -1 : first;
+        this.previousSlot[slot] = -1;
+        if (first != null) {
+            this.previousSlot[first] = slot;
+        }
+        this.objects[slot] = object;
+        this.probabilities[slot] = probability;
+        this.tree.add(slot, probability);
+
+        this.size++;
+        this.totalProbability += probability;
+    }
+
+    /**
+     * Remove an object from this collection, in O(log n) per instance of the object
+     *
+     * @param object object
+     * @return True if object was removed, else False.
+     * @throws IllegalArgumentException if object is null
+     */
+    public boolean remove(E object) {
+        if (object == null) {
+            throw new IllegalArgumentException("Cannot remove null object");
+        }
+
+        Integer first = this.firstSlot.remove(object);
+        if (first == null) {
+            return false;
+        }
+
+        // Remove all instances of the object
+        for (int slot = first; slot != -1; slot = this.nextSlot[slot]) {
+            this.freeSlot(slot);
+        }
+
+        return true;
+    }
+
+    /**
+     * Set the probability share of an object in place, in O(log n). If the object
+     * is in this collection more than once, its instances are merged into one. An
+     * object that is not in this collection is added. Nothing is changed if an
+     * exception is thrown.
+     *
+     * @param object      object. Not null.
+     * @param probability share. 0 removes the object from this collection.
+     * @throws IllegalArgumentException if object is null
+     * @throws IllegalArgumentException if probability < 0
+     * @throws IllegalArgumentException if the total probability would exceed Integer.MAX_VALUE
+     */
+    public void setProbability(E object, int probability) {
+        if (object == null) {
+            throw new IllegalArgumentException("Cannot set the probability of a null object");
+        }
+
+        if (probability < 0) {
+            throw new IllegalArgumentException("Probability cannot be negative");
+        }
+
+        this.checkTotal((long) probability - this.combinedProbability(object));
+        this.setProbability(object, this.merge(object), probability);
+    }
+
+    /**
+     * Change the probability share of an object by an amount in place, in O(log n).
+     * If the object is in this collection more than once, its instances are merged
+     * into one. An object that is not in this collection is added. Nothing is
+     * changed if an exception is thrown.
+     *
+     * @param object object. Not null.
+     * @param amount to change the probability share by. The share cannot become negative.
+     * @throws IllegalArgumentException if object is null
+     * @throws IllegalArgumentException if the probability share would become negative
+     * @throws IllegalArgumentException if the total probability would exceed Integer.MAX_VALUE
+     */
+    public void addProbability(E object, int amount) {
+        if (object == null) {
+            throw new IllegalArgumentException("Cannot set the probability of a null object");
+        }
+
+        // Checked against every instance combined, before any are merged
+        long probability = (long) this.combinedProbability(object) + amount;
+        if (probability < 0) {
+            throw new IllegalArgumentException("Probability cannot be negative");
+        }
+
+        this.checkTotal(amount);
+        this.setProbability(object, this.merge(object), (int) probability);
+    }
+
+    /**
+     * Remove all objects from this collection
+     */
+    public void clear() {
+        Arrays.fill(this.objects, 0, this.usedSlots, null);
+        Arrays.fill(this.probabilities, 0, this.usedSlots, 0);
+        this.tree.clear();
+        this.firstSlot.clear();
+        this.freeCount = 0;
+        this.usedSlots = 0;
+        this.size = 0;
+        this.totalProbability = 0;
+    }
+
+    /**
+     * Get a random object from this collection, based on probability, in O(log n)
+     *
+     * @return <E> Random object
+     * @throws IllegalStateException if this collection is empty
+     */
+    public E get() {
+        if (this.isEmpty()) {
+            throw new IllegalStateException("Cannot get an object out of a empty collection");
+        }
+
+        int random = this.randomOperator.applyAsInt(this.totalProbability);
+
+        @SuppressWarnings("unchecked")
+        E object = (E) this.objects[this.tree.find(random)];
+        return object;
+    }
+
+    /**
+     * Get a random object from this collection, based on probability, and remove
+     * only that instance of it, in O(log n). Other instances of the same object
+     * are kept.
+     *
+     * @return <E> Random object, no longer in this collection
+     * @throws IllegalStateException if this collection is empty
+     */
+    public E getAndRemove() {
+        if (this.isEmpty()) {
+            throw new IllegalStateException("Cannot get an object out of a empty collection");
+        }
+
+        int slot = this.tree.find(this.randomOperator.applyAsInt(this.totalProbability));
+
+        @SuppressWarnings("unchecked")
+        E object = (E) this.objects[slot];
+        this.removeSlot(slot);
+        return object;
+    }
+
+    /**
+     * Get a random object from this collection, based on probability, and reduce
+     * the probability share of only that instance of it, in O(log n). The instance
+     * is removed once its probability share reaches 0.
+     *
+     * @param amount to reduce the probability share by. Must be greater than 0.
+     * @return <E> Random object
+     * @throws IllegalArgumentException if amount <= 0
+     * @throws IllegalStateException if this collection is empty
+     */
+    public E getAndDecrement(int amount) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Amount must be greater than 0");
+        }
+
+        if (this.isEmpty()) {
+            throw new IllegalStateException("Cannot get an object out of a empty collection");
+        }
+
+        int slot = this.tree.find(this.randomOperator.applyAsInt(this.totalProbability));
+
+        @SuppressWarnings("unchecked")
+        E object = (E) this.objects[slot];
+        if (amount >= this.probabilities[slot]) {
+            this.removeSlot(slot);
+        } else {
+            this.probabilities[slot] -= amount;
+            this.tree.add(slot, -amount);
+            this.totalProbability -= amount;
+        }
+        return object;
+    }
+
+    /**
+     * Get the total probability of all elements in this collection
+     *
+     * @return Sum of all element's probability
+     */
+    public int getTotalProbability() {
+        return this.totalProbability;
+    }
+
+    /**
+     * Find the object whose "block" contains an offset, for readers that may race
+     * with a writer. The result is only meaningful if no modification happened
+     * while it was found.
+     *
+     * @param offset offset, between 0 and the total probability - 1
+     * @return Object at the offset, or null if an inconsistent state was read
+     */
+    Object objectAt(int offset) {
+        Object[] objects = this.objects;
+        int slot = this.tree.find(offset);
+        return slot < objects.length ? objects[slot] : null;
+    }
+
+    /**
+     * Set the probability share of the merged instance of an object
+     *
+     * @param object      object
+     * @param slot        slot of the object, or -1 if it is not in this collection
+     * @param probability share, 0 or greater, already checked against the total probability
+     */
+    private void setProbability(E object, int slot, int probability) {
+        if (slot < 0) {
+            if (probability > 0) {
+                this.add(object, probability);
+            }
+            return;
+        }
+
+        if (probability == 0) {
+            this.removeSlot(slot);
+            return;
+        }
+
+        int delta = probability - this.probabilities[slot];
+        this.probabilities[slot] = probability;
+        this.tree.add(slot, delta);
+        this.totalProbability += delta;
+    }
+
+    /**
+     * Get the probability share of every instance of an object combined
+     *
+     * @param object object
+     * @return Combined share, 0 if the object is not in this collection
+     */
+    private int combinedProbability(E object) {
+        Integer first = this.firstSlot.get(object);
+        if (first == null) {
+            return 0;
+        }
+
+        int probability = 0;
+        for (int slot = first; slot != -1; slot = this.nextSlot[slot]) {
+            probability += this.probabilities[slot];
+        }
+        return probability;
+    }
+
+    /**
+     * Check the total probability can grow by an amount without overflowing
+     *
+     * @param added amount the total probability would grow by
+     * @throws IllegalArgumentException if the total probability would exceed Integer.MAX_VALUE
+     */
+    private void checkTotal(long added) {
+        if (added > Integer.MAX_VALUE - this.totalProbability) {
+            throw new IllegalArgumentException("Total probability cannot exceed Integer.MAX_VALUE");
+        }
+    }
+
+    /**
+     * Merge every instance of an object into the first in its chain
+     *
+     * @param object object
+     * @return Slot of the merged instance, or -1 if the object is not in this collection
+     */
+    private int merge(E object) {
+        Integer first = this.firstSlot.get(object);
+        if (first == null) {
+            return -1;
+        }
+
+        int merged = 0;
+        for (int slot = this.nextSlot[first]; slot != -1; slot = this.nextSlot[slot]) {
+            merged += this.probabilities[slot];
+            this.freeSlot(slot);
+        }
+
+        if (merged > 0) {
+            this.nextSlot[first] = -1;
+            this.probabilities[first] += merged;
+            this.tree.add(first, merged);
+            this.totalProbability += merged;
+        }
+        return first;
+    }
+
+    /**
+     * Remove a single instance of an object, unlinking it from its duplicates
+     *
+     * @param slot slot of the instance
+     */
+    private void removeSlot(int slot) {
+        int previous = this.previousSlot[slot];
+        int next = this.nextSlot[slot];
+
+        if (next != -1) {
+            this.previousSlot[next] = previous;
+        }
+
+        if (previous != -1) {
+            this.nextSlot[previous] = next;
+        } else if (next != -1) {
+            @SuppressWarnings("unchecked")
+            E object = (E) this.objects[slot];
+            this.firstSlot.put(object, next);
+        } else {
+            this.firstSlot.remove(this.objects[slot]);
+        }
+
+        this.freeSlot(slot);
+    }
+
+    /**
+     * Empty a slot and make it available to the next add. Does not unlink it
+     * from its duplicates.
+     *
+     * @param slot slot to free
+     */
+    private void freeSlot(int slot) {
+        int probability = this.probabilities[slot];
+        this.tree.add(slot, -probability);
+        this.totalProbability -= probability;
+        this.size--;
+
+        this.objects[slot] = null;
+        this.probabilities[slot] = 0;
+        this.freeSlots[this.freeCount++] = slot;
+    }
+
+    /**
+     * Double the number of slots, rebuilding the tree in O(n)
+     */
+    private void grow() {
+        int capacity = this.objects.length * 2;
+        this.objects = Arrays.copyOf(this.objects, capacity);
+        this.probabilities = Arrays.copyOf(this.probabilities, capacity);
+        this.nextSlot = Arrays.copyOf(this.nextSlot, capacity);
+        this.previousSlot = Arrays.copyOf(this.previousSlot, capacity);
+        this.freeSlots = Arrays.copyOf(this.freeSlots, capacity);
+        this.tree.rebuild(this.probabilities, capacity);
+    }
+}
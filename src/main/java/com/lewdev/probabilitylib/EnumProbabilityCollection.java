@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 2020 Lewys Davies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.lewdev.probabilitylib;
+
+import com.lewdev.probabilitylib.ProbabilityCollection.ProbabilitySetElement;
+
+import java.util.*;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * ProbabilityCollection for retrieving random enum constants based on probability.
+ * <p>
+ * Probability shares are stored in an array indexed by ordinal, so contains,
+ * add, remove and setProbability are O(1). Constants with no probability share
+ * have an empty "block" and are never selected. get is selected in the same way
+ * as {@link ProbabilityCollection}.
+ * <p>
+ * Unlike {@link ProbabilityCollection}, each constant is held at most once;
+ * adding a constant again increases its probability share.
+ *
+ * @param <E> Type of enum
+ */
+public final class EnumProbabilityCollection<E extends Enum<E>> {
+    private final E[] universe;
+    private final int[] probabilities;
+    private final IntUnaryOperator randomOperator;
+    private final Selector selector = new Selector();
+    private int totalProbability = 0;
+    private int size = 0;
+
+    /**
+     * Create a new EnumProbabilityCollection with a custom random number generator
+     *
+     * @param type                  Class of the enum. Not null.
+     * @param randomNumberGenerator Random number generator that returns a random number between 0 and n-1
+     */
+    public EnumProbabilityCollection(Class<E> type, IntUnaryOperator randomNumberGenerator) {
+        if (type == null) {
+            throw new IllegalArgumentException("Enum type cannot be null");
+        }
+
+        this.universe = type.getEnumConstants();
+        this.probabilities = new int[this.universe.length];
+        this.randomOperator = randomNumberGenerator;
+    }
+
+    private EnumProbabilityCollection(Class<E> type, SplittableRandom random) {
+        this(type, random::nextInt);
+    }
+
+    /**
+     * Create a new EnumProbabilityCollection with a default random number generator
+     *
+     * @param type Class of the enum. Not null.
+     */
+    public EnumProbabilityCollection(Class<E> type) {
+        this(type, new SplittableRandom());
+    }
+
+    /**
+     * Create a new EnumProbabilityCollection with a default random number generator
+     *
+     * @param type Class of the enum. Not null.
+     * @param seed Seed for random number generator
+     */
+    public EnumProbabilityCollection(Class<E> type, long seed) {
+        this(type, new SplittableRandom(seed));
+    }
+
+    /**
+     * Get the total of constants in this collection
+     *
+     * @return Number of constants with a probability share
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Check if collection is empty
+     *
+     * @return True if collection contains no constants, else False
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Check if collection contains a constant, in O(1)
+     *
+     * @return True if collection contains the constant, else False
+     * @throws IllegalArgumentException if object is null
+     */
+    public boolean contains(E object) {
+        if (object == null) {
+            throw new IllegalArgumentException("Cannot check if null object is contained in this collection");
+        }
+
+        return this.probabilities[object.ordinal()] > 0;
+    }
+
+    /**
+     * Get the probability share of a constant, in O(1)
+     *
+     * @param object constant. Not null.
+     * @return Probability share, 0 if the constant is not in this collection
+     * @throws IllegalArgumentException if object is null
+     */
+    public int getProbability(E object) {
+        if (object == null) {
+            throw new IllegalArgumentException("Cannot get the probability of a null object");
+        }
+
+        return this.probabilities[object.ordinal()];
+    }
+
+    /**
+     * Get the iterator for this collection, in ordinal order
+     *
+     * @return Iterator over this collection
+     */
+    public Iterator<ProbabilitySetElement<E>> iterator() {
+        return new Iterator<ProbabilitySetElement<E>>() {
+            private int ordinal = this.nextUsed(0);
+
+            private int nextUsed(int from) {
+                int i = from;
+                while (i < probabilities.length && probabilities[i] == 0) {
+                    i++;
+                }
+                return i;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return this.ordinal < probabilities.length;
+            }
+
+            @Override
+            public ProbabilitySetElement<E> next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                ProbabilitySetElement<E> entry = new ProbabilitySetElement<>(universe[this.ordinal], probabilities[this.ordinal]);
+                this.ordinal = this.nextUsed(this.ordinal + 1);
+                return entry;
+            }
+        };
+    }
+
+    /**
+     * Add a constant to this collection, in O(1). If the constant is already in
+     * this collection, its probability share is increased.
+     *
+     * @param object      constant. Not null.
+     * @param probability share. Must be greater than 0.
+     * @throws IllegalArgumentException if object is null
+     * @throws IllegalArgumentException if probability <= 0
+     * @throws IllegalArgumentException if the total probability would exceed Integer.MAX_VALUE
+     */
+    public void add(E object, int probability) {
+        if (object == null) {
+            throw new IllegalArgumentException("Cannot add null object");
+        }
+
+        if (probability <= 0) {
+            throw new IllegalArgumentException("Probability must be greater than 0");
+        }
+
+        if (probability > Integer.MAX_VALUE - this.totalProbability) {
+            throw new IllegalArgumentException("Total probability cannot exceed Integer.MAX_VALUE");
+        }
+
+        this.setProbability(object, this.probabilities[object.ordinal()] + probability);
+    }
+
+    /**
+     * Set the probability share of a constant, in O(1)
+     *
+     * @param object      constant. Not null.
+     * @param probability share. 0 removes the constant from this collection.
+     * @throws IllegalArgumentException if object is null
+     * @throws IllegalArgumentException if probability < 0
+     * @throws IllegalArgumentException if the total probability would exceed Integer.MAX_VALUE
+     */
+    public void setProbability(E object, int probability) {
+        if (object == null) {
+            throw new IllegalArgumentException("Cannot set the probability of a null object");
+        }
+
+        if (probability < 0) {
+            throw new IllegalArgumentException("Probability cannot be negative");
+        }
+
+        int ordinal = object.ordinal();
+        int previous = this.probabilities[ordinal];
+        if (previous == probability) {
+            return;
+        }
+
+        if (probability - previous > Integer.MAX_VALUE - this.totalProbability) {
+            throw new IllegalArgumentException("Total probability cannot exceed Integer.MAX_VALUE");
+        }
+
+        if (previous == 0) {
+            this.size++;
+        } else if (probability == 0) {
+            this.size--;
+        }
+
+        this.probabilities[ordinal] = probability;
+        this.totalProbability += probability - previous;
+        this.selector.modified(ordinal);
+    }
+
+    /**
+     * Remove a constant from this collection, in O(1)
+     *
+     * @param object constant
+     * @return True if constant was removed, else False.
+     * @throws IllegalArgumentException if object is null
+     */
+    public boolean remove(E object) {
+        if (object == null) {
+            throw new IllegalArgumentException("Cannot remove null object");
+        }
+
+        if (this.probabilities[object.ordinal()] == 0) {
+            return false;
+        }
+
+        this.setProbability(object, 0);
+        return true;
+    }
+
+    /**
+     * Remove all constants from this collection
+     */
+    public void clear() {
+        Arrays.fill(this.probabilities, 0);
+        this.size = 0;
+        this.totalProbability = 0;
+        this.selector.modified(0);
+    }
+
+    /**
+     * Get a random constant from this collection, based on probability.
+     *
+     * @return <E> Random constant
+     * @throws IllegalStateException if this collection is empty
+     */
+    public E get() {
+        if (this.isEmpty()) {
+            throw new IllegalStateException("Cannot get an object out of a empty collection");
+        }
+
+        int ordinal = this.selector.select(this.probabilities, this.probabilities.length, this.totalProbability, this.randomOperator);
+        return this.universe[ordinal];
+    }
+
+    /**
+     * Count how many times each constant is selected by a number of gets, without
+     * making each get. Takes O(n) expected time for n constants, for up to 2^50 gets,
+     * and O(n * count / 2^50) past that.
+     *
+     * @param count number of gets. Must be 0 or greater.
+     * @return Number of times each constant in this collection was selected
+     * @throws IllegalArgumentException if count < 0
+     * @throws IllegalStateException if this collection is empty
+     */
+    public EnumMap<E, Long> sampleCounts(long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count cannot be negative");
+        }
+
+        if (this.isEmpty()) {
+            throw new IllegalStateException("Cannot get an object out of a empty collection");
+        }
+
+        long[] counts = Binomial.multinomial(this.probabilities, this.probabilities.length, this.totalProbability, count, this.randomOperator);
+
+        EnumMap<E, Long> result = new EnumMap<>(this.universe[0].getDeclaringClass());
+        for (int ordinal = 0; ordinal < this.universe.length; ordinal++) {
+            if (this.probabilities[ordinal] > 0) {
+                result.put(this.universe[ordinal], counts[ordinal]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the total probability of all constants in this collection
+     *
+     * @return Sum of all constant's probability
+     */
+    public int getTotalProbability() {
+        return this.totalProbability;
+    }
+}
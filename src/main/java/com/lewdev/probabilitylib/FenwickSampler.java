@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2020 Lewys Davies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.lewdev.probabilitylib;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Selects a random index from an array of probabilities owned by a collection,
+ * with a {@link FenwickTree} that is kept up to date one index at a time.
+ * <p>
+ * A copy of each index's probability, as held in the tree, is kept so the
+ * difference can be added when an index is recalculated. Changes reported with
+ * {@link #changed(int, int)} are added straight away, O(log n). Indexes after a
+ * structural modification are recalculated by the next selection, also
+ * O(log n) each, unless so many are out of date that the tree is rebuilt, O(n).
+ */
+final class FenwickSampler {
+    private final FenwickTree tree = new FenwickTree(0);
+
+    // Probability of each index held in the tree, 0 past treeSize
+    private int[] weights = new int[0];
+    // Indexes held in the tree, valid below validIndexes
+    private int treeSize = 0;
+    private int validIndexes = 0;
+
+    /**
+     * Select a random index, based on probability
+     *
+     * @param probabilities    probability share of each index
+     * @param size             number of indexes in use. Must be greater than 0.
+     * @param totalProbability sum of the first size probabilities
+     * @param random           Random number generator that returns a random number between 0 and n-1
+     * @return Index of the selected element
+     */
+    int select(int[] probabilities, int size, int totalProbability, IntUnaryOperator random) {
+        if (this.validIndexes < size || this.treeSize != size) {
+            this.update(probabilities, size);
+        }
+
+        return this.tree.find(random.applyAsInt(totalProbability));
+    }
+
+    /**
+     * Change the probability of a single index in place
+     *
+     * @param index index whose probability changed
+     * @param delta amount the probability changed by
+     */
+    void changed(int index, int delta) {
+        if (index < this.validIndexes) {
+            this.weights[index] += delta;
+            this.tree.add(index, delta);
+        }
+    }
+
+    /**
+     * Invalidate the tree after the collection has been modified
+     *
+     * @param fromIndex first index whose probability, or position, changed
+     */
+    void modified(int fromIndex) {
+        this.validIndexes = Math.min(this.validIndexes, fromIndex);
+    }
+
+    /**
+     * Bring every index up to date, and clear indexes past the end
+     */
+    private void update(int[] probabilities, int size) {
+        // Rebuilding in O(n) is cheaper than adding to more than half of the indexes
+        boolean rebuild = this.weights.length < size || this.validIndexes < size / 2;
+        if (this.weights.length < size) {
+            this.weights = Arrays.copyOf(this.weights, Math.max(size, this.weights.length * 2));
+        }
+
+        int end = Math.max(size, this.treeSize);
+        for (int i = this.validIndexes; i < end; i++) {
+            int weight = i < size ? probabilities[i] : 0;
+            if (!rebuild && weight != this.weights[i]) {
+                this.tree.add(i, weight - this.weights[i]);
+            }
+            this.weights[i] = weight;
+        }
+
+        if (rebuild) {
+            this.tree.rebuild(this.weights, this.weights.length);
+        }
+        this.treeSize = size;
+        this.validIndexes = size;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2020 Lewys Davies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.lewdev.probabilitylib;
+
+import java.util.Arrays;
+
+/**
+ * Binary indexed tree of cumulative probability.
+ * <p>
+ * Updating the probability of an index, and finding which index a random
+ * number falls in, are both O(log n).
+ */
+final class FenwickTree {
+    // 1-based, tree[i] holds the sum of the (i & -i) weights ending at index i
+    private int[] tree;
+    private int capacity;
+
+    /**
+     * Create a new empty tree
+     *
+     * @param capacity initial number of indexes, all with probability 0
+     */
+    FenwickTree(int capacity) {
+        this.tree = new int[capacity + 1];
+        this.capacity = capacity;
+    }
+
+    /**
+     * Get the number of indexes this tree can hold
+     *
+     * @return Capacity of this tree
+     */
+    int capacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Change the probability of an index
+     *
+     * @param index index, between 0 and capacity-1
+     * @param delta amount to add to the index's probability. May be negative.
+     */
+    void add(int index, int delta) {
+        for (int i = index + 1; i <= this.capacity; i += i & -i) {
+            this.tree[i] += delta;
+        }
+    }
+
+    /**
+     * Get the sum of probability of all indexes before an index
+     *
+     * @param index exclusive end index, between 0 and capacity
+     * @return Sum of probability in [0, index)
+     */
+    int prefixSum(int index) {
+        int sum = 0;
+        for (int i = index; i > 0; i -= i & -i) {
+            sum += this.tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Find the index whose "block" contains an offset.
+     * <p>
+     * Descends the tree from the largest power of two, so no separate binary
+     * search over prefix sums is needed.
+     * <p>
+     * Only reads the tree array once, so a concurrent rebuild can give a wrong
+     * index, but never throws.
+     *
+     * @param offset offset, between 0 and the total probability - 1
+     * @return Smallest index whose prefix sum, inclusive, is greater than offset
+     */
+    int find(int offset) {
+        int[] tree = this.tree;
+        int capacity = tree.length - 1;
+        int position = 0;
+        int remaining = offset;
+
+        for (int step = Integer.highestOneBit(capacity); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= capacity && tree[next] <= remaining) {
+                position = next;
+                remaining -= tree[next];
+            }
+        }
+
+        // position is the 1-based last index with prefix sum <= offset, so the
+        // 0-based index of the next one is the same number
+        return position;
+    }
+
+    /**
+     * Resize this tree and rebuild it from the given probabilities, in O(n)
+     *
+     * @param weights  probability of each index, 0 for unused indexes
+     * @param capacity new capacity, at least weights.length
+     */
+    void rebuild(int[] weights, int capacity) {
+        if (capacity + 1 != this.tree.length) {
+            this.tree = new int[capacity + 1];
+        } else {
+            Arrays.fill(this.tree, 0);
+        }
+        this.capacity = capacity;
+
+        for (int i = 1; i <= capacity; i++) {
+            if (i <= weights.length) {
+                this.tree[i] += weights[i - 1];
+            }
+
+            int parent = i + (i & -i);
+            if (parent <= capacity) {
+                this.tree[parent] += this.tree[i];
+            }
+        }
+    }
+
+    /**
+     * Set every index back to probability 0
+     */
+    void clear() {
+        Arrays.fill(this.tree, 0);
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2020 Lewys Davies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.lewdev.probabilitylib;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Cumulative "blocks" with a guide table, for selecting a weighted index in
+ * expected constant time (Chen and Asau's indexed search).
+ * <br>
+ * <br>
+ * <b>Selection Algorithm Implementation</b>:
+ * <p>
+ * <ul>
+ * <li>The end of each index's "block" is stored in order
+ * <li>The range of random numbers is split into equal sized buckets, each
+ * remembering the first "block" that ends inside or after it
+ * <li>A random number is selected, and the search starts from its bucket's
+ * "block", stepping forward until the "block" ends after the random number
+ * </ul>
+ * There are between half and four times as many buckets as indexes, so a
+ * search steps over at most 3 "blocks" on average, whatever the probabilities.
+ * <p>
+ * Buckets are a power of 2 wide, so they do not move when the total probability
+ * changes. After a modification only the "blocks" and buckets from the first
+ * modified index onwards are recalculated, unlike an {@link AliasTable} which
+ * is always laid out again in full.
+ */
+final class GuideTable {
+    // End of each index's "block", exclusive. Only valid below validBlocks
+    private int[] blockEnds = new int[0];
+    private int validBlocks = 0;
+
+    // First "block" ending after the start of each bucket. Only valid below validBuckets
+    private int[] guide = new int[0];
+    private int validBuckets = 0;
+    private int shift = 0;
+
+    // Total probability the buckets were laid out for, 0 once they are out of date
+    private int validTotal = 0;
+
+    /**
+     * Select a random index, based on probability
+     *
+     * @param probabilities    probability share of each index
+     * @param size             number of indexes in use. Must be greater than 0.
+     * @param totalProbability sum of the first size probabilities
+     * @param random           Random number generator that returns a random number between 0 and n-1
+     * @return Index of the selected element
+     */
+    int select(int[] probabilities, int size, int totalProbability, IntUnaryOperator random) {
+        if (this.validBlocks < size || this.validTotal != totalProbability) {
+            this.update(probabilities, size, totalProbability);
+        }
+
+        int offset = random.applyAsInt(totalProbability);
+
+        // Step forward from the bucket's "block" to the one that ends after the random number
+        int index = this.guide[offset >>> this.shift];
+        while (this.blockEnds[index] <= offset) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Select a random index, based on probability, by binary search over the
+     * "blocks" alone, O(log n). The buckets are left out of date until the next
+     * {@link #select}.
+     *
+     * @param probabilities    probability share of each index
+     * @param size             number of indexes in use. Must be greater than 0.
+     * @param totalProbability sum of the first size probabilities
+     * @param random           Random number generator that returns a random number between 0 and n-1
+     * @return Index of the selected element
+     */
+    int binarySearch(int[] probabilities, int size, int totalProbability, IntUnaryOperator random) {
+        if (this.validBlocks < size) {
+            this.updateBlocks(probabilities, size);
+        }
+
+        int offset = random.applyAsInt(totalProbability);
+
+        // Find the first "block" that ends after the random number
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.blockEnds[mid] > offset) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Invalidate the "blocks" and buckets after the collection has been modified
+     *
+     * @param fromIndex first index whose probability, or position, changed
+     */
+    void modified(int fromIndex) {
+        this.validBlocks = Math.min(this.validBlocks, fromIndex);
+    }
+
+    /**
+     * Recalculate every "block" and bucket from the first invalid one
+     */
+    private void update(int[] probabilities, int size, int totalProbability) {
+        this.updateBlocks(probabilities, size);
+
+        // Resize buckets, starting again, once there are too few or too many for the indexes
+        int buckets = ((totalProbability - 1) >>> this.shift) + 1;
+        if (buckets < size / 2 || buckets > size * 4L) {
+            // Largest power of 2 width that still gives at least one bucket per index
+            this.shift = 31 - Integer.numberOfLeadingZeros(Math.max(1, totalProbability / size));
+            this.validBuckets = 0;
+            buckets = ((totalProbability - 1) >>> this.shift) + 1;
+        }
+
+        if (this.guide.length < buckets) {
+            this.guide = Arrays.copyOf(this.guide, Math.max(buckets, this.guide.length * 2));
+        }
+
+        // Each "block" is found by the buckets that start inside it
+        int[] blockEnds = this.blockEnds;
+        int[] guide = this.guide;
+        int shift = this.shift;
+        long roundUp = (1L << shift) - 1;
+        int bucket = this.validBuckets;
+        for (int index = bucket == 0 ? 0 : guide[bucket - 1]; bucket < buckets; index++) {
+            int end = (int) ((blockEnds[index] + roundUp) >>> shift);
+            while (bucket < end) {
+                guide[bucket++] = index;
+            }
+        }
+        this.validBuckets = buckets;
+        this.validTotal = totalProbability;
+    }
+
+    /**
+     * Recalculate every "block" from the first invalid one, invalidating the
+     * buckets that start after it
+     */
+    private void updateBlocks(int[] probabilities, int size) {
+        // Buckets starting before the first invalid "block" still find the same "block"
+        int validEnd = this.validBlocks == 0 ? 0 : this.blockEnds[this.validBlocks - 1];
+        this.validBuckets = Math.min(this.validBuckets, (int) ((validEnd + (1L << this.shift) - 1) >>> this.shift));
+        this.validTotal = 0;
+
+        if (this.blockEnds.length < size) {
+            this.blockEnds = Arrays.copyOf(this.blockEnds, Math.max(size, this.blockEnds.length * 2));
+        }
+
+        int end = validEnd;
+        for (int i = this.validBlocks; i < size; i++) {
+            end += probabilities[i];
+            this.blockEnds[i] = end;
+        }
+        this.validBlocks = size;
+    }
+}
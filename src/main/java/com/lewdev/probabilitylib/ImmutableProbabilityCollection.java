@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2020 Lewys Davies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.lewdev.probabilitylib;
+
+import com.lewdev.probabilitylib.ProbabilityCollection.ProbabilitySetElement;
+
+import java.util.*;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Read only ProbabilityCollection, for collections that are built once and then
+ * only read. Created by {@link ProbabilityCollection#toImmutable()}.
+ * <p>
+ * Elements are copied into an array trimmed to the size of the collection, and
+ * their "blocks" are laid out in an {@link AliasTable} up front, so every get is
+ * O(1). Nothing can be modified after it is created, so it can be shared between
+ * threads without synchronisation, as long as its random number generator is
+ * thread safe.
+ * <p>
+ * To keep the copy small, the probability of each element is not stored
+ * separately, but recovered from the alias table when iterating. Objects are
+ * found through an {@link IndexTable} of positions rather than a map.
+ *
+ * @param <E> Type of elements
+ */
+public final class ImmutableProbabilityCollection<E> {
+    private final Object[] objects;
+    private final int totalProbability;
+    private final AliasTable aliasTable;
+    private final IntUnaryOperator randomOperator;
+    // Position of the first instance of every object
+    private final IndexTable index;
+    // Combined probability share of every object, at the position of its first instance
+    private final int[] shares;
+
+    /**
+     * Copy the contents of a collection
+     *
+     * @param objects               objects, at least size long
+     * @param probabilities         probability share of each object, at least size long
+     * @param size                  number of objects
+     * @param totalProbability      sum of the first size probabilities
+     * @param randomNumberGenerator Thread safe random number generator that returns a random number between 0 and n-1
+     */
+    ImmutableProbabilityCollection(Object[] objects, int[] probabilities, int size, int totalProbability,
+                                   IntUnaryOperator randomNumberGenerator) {
+        this.objects = Arrays.copyOf(objects, size);
+        this.totalProbability = totalProbability;
+        this.aliasTable = size == 0 ? null : new AliasTable(probabilities, size, totalProbability);
+        this.randomOperator = randomNumberGenerator;
+
+        this.index = new IndexTable(size);
+        this.shares = new int[size];
+        for (int i = 0; i < size; i++) {
+            int first = this.index.get(this.objects, this.objects[i]);
+            if (first == -1) {
+                this.index.add(this.objects, i);
+                first = i;
+            }
+            this.shares[first] += probabilities[i];
+        }
+    }
+
+    /**
+     * Get the total of objects in this collection
+     *
+     * @return Number of objects inside the collection
+     */
+    public int size() {
+        return this.objects.length;
+    }
+
+    /**
+     * Check if collection is empty
+     *
+     * @return True if collection contains no elements, else False
+     */
+    public boolean isEmpty() {
+        return this.objects.length == 0;
+    }
+
+    /**
+     * Check if collection contains an object, in O(1) expected
+     *
+     * @return True if collection contains the object, else False
+     * @throws IllegalArgumentException if object is null
+     */
+    public boolean contains(E object) {
+        if (object == null) {
+            throw new IllegalArgumentException("Cannot check if null object is contained in this collection");
+        }
+
+        return this.index.get(this.objects, object) != -1;
+    }
+
+    /**
+     * Get the probability share of an object, in O(1) expected
+     *
+     * @param object object. Not null.
+     * @return Probability share of every instance of the object combined, 0 if the
+     * object is not in this collection
+     * @throws IllegalArgumentException if object is null
+     */
+    public int getProbability(E object) {
+        if (object == null) {
+            throw new IllegalArgumentException("Cannot get the probability of a null object");
+        }
+
+        int first = this.index.get(this.objects, object);
+        return first == -1 ? 0 : this.shares[first];
+    }
+
+    /**
+     * Get the iterator for this collection. The iterator does not support remove.
+     * Creating it takes O(n), to recover the probability of every element.
+     *
+     * @return Iterator over this collection
+     */
+    public Iterator<ProbabilitySetElement<E>> iterator() {
+        int[] probabilities = this.aliasTable == null ? new int[0] : this.aliasTable.weights();
+
+        return new Iterator<ProbabilitySetElement<E>>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return this.index < objects.length;
+            }
+
+            @Override
+            public ProbabilitySetElement<E> next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                @SuppressWarnings("unchecked")
+                E object = (E) objects[this.index];
+                return new ProbabilitySetElement<>(object, probabilities[this.index++]);
+            }
+        };
+    }
+
+    /**
+     * Get a random object from this collection, based on probability, in O(1)
+     *
+     * @return <E> Random object
+     * @throws IllegalStateException if this collection is empty
+     */
+    public E get() {
+        if (this.aliasTable == null) {
+            throw new IllegalStateException("Cannot get an object out of a empty collection");
+        }
+
+        @SuppressWarnings("unchecked")
+        E object = (E) this.objects[this.aliasTable.sample(this.randomOperator)];
+        return object;
+    }
+
+    /**
+     * Get many random objects from this collection, based on probability.
+     *
+     * @param count number of objects to get. Must be 0 or greater.
+     * @return List of count random objects, in the order they were selected
+     * @throws IllegalArgumentException if count < 0
+     * @throws IllegalStateException if this collection is empty
+     */
+    public List<E> get(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count cannot be negative");
+        }
+
+        @SuppressWarnings("unchecked")
+        E[] objects = (E[]) new Object[count];
+        return Arrays.asList(this.get(objects));
+    }
+
+    /**
+     * Fill an array with random objects from this collection, based on probability.
+     *
+     * @param out array to fill. Not null.
+     * @return The same array, filled
+     * @throws IllegalArgumentException if out is null
+     * @throws IllegalStateException if this collection is empty
+     */
+    public E[] get(E[] out) {
+        if (out == null) {
+            throw new IllegalArgumentException("Cannot fill a null array");
+        }
+
+        if (this.aliasTable == null) {
+            throw new IllegalStateException("Cannot get an object out of a empty collection");
+        }
+
+        for (int i = 0; i < out.length; i++) {
+            @SuppressWarnings("unchecked")
+            E object = (E) this.objects[this.aliasTable.sample(this.randomOperator)];
+            out[i] = object;
+        }
+        return out;
+    }
+
+    /**
+     * Get the total probability of all elements in this collection
+     *
+     * @return Sum of all element's probability
+     */
+    public int getTotalProbability() {
+        return this.totalProbability;
+    }
+}
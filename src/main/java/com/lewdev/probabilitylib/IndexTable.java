@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2020 Lewys Davies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.lewdev.probabilitylib;
+
+/**
+ * Hash index from an object to the position of its first instance in an array
+ * of objects owned by a collection.
+ * <p>
+ * Only positions are stored, in a single int[] with open addressing and linear
+ * probing, so no entry or boxed Integer is allocated per object. The objects
+ * themselves are compared by reading them back out of the collection's array.
+ */
+final class IndexTable {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // Position of an object plus 1, 0 for an empty slot
+    private int[] slots;
+    private int count = 0;
+
+    /**
+     * Create a new, empty IndexTable
+     */
+    IndexTable() {
+        this(0);
+    }
+
+    /**
+     * Create a new, empty IndexTable with room for a number of objects
+     *
+     * @param expected number of distinct objects to make room for
+     */
+    IndexTable(int expected) {
+        this.slots = new int[capacityFor(expected)];
+    }
+
+    /**
+     * Get the position of an object, in O(1) expected
+     *
+     * @param objects the collection's objects
+     * @param object  object to find. Not null.
+     * @return Position of the object, -1 if it is not indexed
+     */
+    int get(Object[] objects, Object object) {
+        int[] slots = this.slots;
+        int mask = slots.length - 1;
+        for (int slot = hash(object) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            Object candidate = objects[slots[slot] - 1];
+            if (candidate == object || candidate.equals(object)) {
+                return slots[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Index an object that is not indexed yet
+     *
+     * @param objects  the collection's objects
+     * @param position position of the object to index
+     */
+    void add(Object[] objects, int position) {
+        if (++this.count > this.slots.length - (this.slots.length >>> 2)) {
+            this.resize(objects, this.slots.length * 2);
+        }
+        this.insert(objects[position], position);
+    }
+
+    /**
+     * Change the position of an indexed object
+     *
+     * @param object object. Not null.
+     * @param from   position the object is indexed at
+     * @param to     position to index it at instead
+     */
+    void move(Object object, int from, int to) {
+        this.slots[this.slotOf(object, from)] = to + 1;
+    }
+
+    /**
+     * Remove an indexed object, in O(1) expected
+     *
+     * @param objects  the collection's objects, with every other indexed object still in place
+     * @param object   object. Not null.
+     * @param position position the object is indexed at
+     */
+    void remove(Object[] objects, Object object, int position) {
+        int[] slots = this.slots;
+        int mask = slots.length - 1;
+
+        // Shift back every later object in the run that would no longer be found past the gap
+        int gap = this.slotOf(object, position);
+        for (int slot = (gap + 1) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int home = hash(objects[slots[slot] - 1]) & mask;
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                slots[gap] = slots[slot];
+                gap = slot;
+            }
+        }
+        slots[gap] = 0;
+        this.count--;
+    }
+
+    /**
+     * Grow up front to hold a number of objects, so adding them one at a time does
+     * not grow more than once
+     *
+     * @param objects  the collection's objects
+     * @param expected number of distinct objects to make room for
+     */
+    void ensureCapacity(Object[] objects, int expected) {
+        if (expected > this.slots.length - (this.slots.length >>> 2)) {
+            this.resize(objects, capacityFor(expected));
+        }
+    }
+
+    /**
+     * Remove every object
+     */
+    void clear() {
+        this.slots = new int[DEFAULT_CAPACITY];
+        this.count = 0;
+    }
+
+    private void insert(Object object, int position) {
+        int mask = this.slots.length - 1;
+        int slot = hash(object) & mask;
+        while (this.slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        this.slots[slot] = position + 1;
+    }
+
+    /**
+     * Find the slot an object is indexed in, by its position
+     */
+    private int slotOf(Object object, int position) {
+        int mask = this.slots.length - 1;
+        int slot = hash(object) & mask;
+        while (this.slots[slot] != position + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize(Object[] objects, int capacity) {
+        int[] old = this.slots;
+        this.slots = new int[capacity];
+        for (int position : old) {
+            if (position != 0) {
+                this.insert(objects[position - 1], position - 1);
+            }
+        }
+    }
+
+    /**
+     * Smallest power of 2 that keeps the slots at most 3/4 full
+     */
+    private static int capacityFor(int expected) {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity - (capacity >>> 2) < expected) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * Spread the hash code, so sequential hash codes do not fill neighbouring slots
+     */
+    private static int hash(Object object) {
+        int hash = object.hashCode() * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2020 Lewys Davies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.lewdev.probabilitylib;
+
+import java.util.*;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * ProbabilityCollection of primitive longs, for retrieving random elements based
+ * on probability without boxing.
+ * <p>
+ * Elements are stored in a long[], and selected in the same way as
+ * {@link ProbabilityCollection}. Its tables are laid out again in place after
+ * a modification, so getLong only allocates when the collection has grown.
+ */
+public final class LongProbabilityCollection {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final IntUnaryOperator randomOperator;
+    private final Selector selector = new Selector();
+    private int totalProbability = 0;
+
+    private long[] elements = new long[DEFAULT_CAPACITY];
+    private int[] probabilities = new int[DEFAULT_CAPACITY];
+    private int size = 0;
+
+    /**
+     * Create a new LongProbabilityCollection with a custom random number generator
+     *
+     * @param randomNumberGenerator Random number generator that returns a random number between 0 and n-1
+     */
+    public LongProbabilityCollection(IntUnaryOperator randomNumberGenerator) {
+        this.randomOperator = randomNumberGenerator;
+    }
+
+    private LongProbabilityCollection(SplittableRandom random) {
+        this(random::nextInt);
+    }
+
+    /**
+     * Create a new LongProbabilityCollection with a default random number generator
+     */
+    public LongProbabilityCollection() {
+        this(new SplittableRandom());
+    }
+
+    /**
+     * Create a new LongProbabilityCollection with a default random number generator
+     *
+     * @param seed Seed for random number generator
+     */
+    public LongProbabilityCollection(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    /**
+     * Get the total of elements in this collection
+     *
+     * @return Number of elements inside the collection
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Check if collection is empty
+     *
+     * @return True if collection contains no elements, else False
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Check if collection contains an element
+     *
+     * @return True if collection contains the element, else False
+     */
+    public boolean contains(long element) {
+        for (int i = 0; i < this.size; i++) {
+            if (this.elements[i] == element) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the iterator over the elements of this collection
+     *
+     * @return Iterator over this collection
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            private int index = 0;
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return this.index < size;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                this.last = this.index++;
+                return elements[this.last];
+            }
+
+            @Override
+            public void remove() {
+                if (this.last < 0) {
+                    throw new IllegalStateException();
+                }
+
+                removeIndex(this.last);
+                this.index = this.last;
+                this.last = -1;
+            }
+        };
+    }
+
+    /**
+     * Add an element to this collection
+     *
+     * @param element     element
+     * @param probability share. Must be greater than 0.
+     * @throws IllegalArgumentException if probability <= 0
+     * @throws IllegalArgumentException if the total probability would exceed Integer.MAX_VALUE
+     */
+    public void add(long element, int probability) {
+        if (probability <= 0) {
+            throw new IllegalArgumentException("Probability must be greater than 0");
+        }
+
+        if (probability > Integer.MAX_VALUE - this.totalProbability) {
+            throw new IllegalArgumentException("Total probability cannot exceed Integer.MAX_VALUE");
+        }
+
+        if (this.size == this.elements.length) {
+            this.grow();
+        }
+
+        this.elements[this.size] = element;
+        this.probabilities[this.size] = probability;
+        this.size++;
+        this.totalProbability += probability;
+        this.selector.modified(this.size - 1);
+    }
+
+    /**
+     * Remove an element from this collection
+     *
+     * @param element element
+     * @return True if element was removed, else False.
+     */
+    public boolean remove(long element) {
+        // Remove all instances of the element, compacting the rest in one pass
+        int kept = 0;
+        int firstRemoved = -1;
+        for (int i = 0; i < this.size; i++) {
+            if (this.elements[i] == element) {
+                this.totalProbability -= this.probabilities[i];
+                if (firstRemoved < 0) {
+                    firstRemoved = i;
+                }
+            } else {
+                this.elements[kept] = this.elements[i];
+                this.probabilities[kept] = this.probabilities[i];
+                kept++;
+            }
+        }
+
+        if (firstRemoved < 0) {
+            return false;
+        }
+
+        this.size = kept;
+        this.selector.modified(firstRemoved);
+        return true;
+    }
+
+    /**
+     * Remove all elements from this collection
+     */
+    public void clear() {
+        this.size = 0;
+        this.totalProbability = 0;
+        this.selector.modified(0);
+    }
+
+    /**
+     * Get a random element from this collection, based on probability.
+     *
+     * @return Random element
+     * @throws IllegalStateException if this collection is empty
+     */
+    public long getLong() {
+        if (this.isEmpty()) {
+            throw new IllegalStateException("Cannot get an element out of a empty collection");
+        }
+
+        return this.elements[this.selector.select(this.probabilities, this.size, this.totalProbability, this.randomOperator)];
+    }
+
+    /**
+     * Get many random elements from this collection, based on probability.
+     *
+     * @param count number of elements to get. Must be 0 or greater.
+     * @return Array of count random elements, in the order they were selected
+     * @throws IllegalArgumentException if count < 0
+     * @throws IllegalStateException if this collection is empty
+     */
+    public long[] getLongs(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count cannot be negative");
+        }
+
+        return this.getLongs(new long[count]);
+    }
+
+    /**
+     * Fill an array with random elements from this collection, based on probability.
+     * Cheaper per element than calling {@link #getLong()} repeatedly, as the collection
+     * is only checked once and the selection table is prepared for the whole batch.
+     *
+     * @param out array to fill. Not null.
+     * @return The same array, filled
+     * @throws IllegalArgumentException if out is null
+     * @throws IllegalStateException if this collection is empty
+     */
+    public long[] getLongs(long[] out) {
+        if (out == null) {
+            throw new IllegalArgumentException("Cannot fill a null array");
+        }
+
+        if (this.isEmpty()) {
+            throw new IllegalStateException("Cannot get an element out of a empty collection");
+        }
+
+        long[] elements = this.elements;
+        int[] probabilities = this.probabilities;
+        int size = this.size;
+        int totalProbability = this.totalProbability;
+
+        this.selector.prepare(out.length, probabilities, size, totalProbability);
+        for (int i = 0; i < out.length; i++) {
+            out[i] = elements[this.selector.select(probabilities, size, totalProbability, this.randomOperator)];
+        }
+        return out;
+    }
+
+    /**
+     * Get the total probability of all elements in this collection
+     *
+     * @return Sum of all element's probability
+     */
+    public int getTotalProbability() {
+        return this.totalProbability;
+    }
+
+    /**
+     * Remove the element at an index, keeping the order of the rest
+     *
+     * @param index index of the element
+     */
+    private void removeIndex(int index) {
+        this.totalProbability -= this.probabilities[index];
+
+        int moved = this.size - index - 1;
+        System.arraycopy(this.elements, index + 1, this.elements, index, moved);
+        System.arraycopy(this.probabilities, index + 1, this.probabilities, index, moved);
+
+        this.size--;
+        this.selector.modified(index);
+    }
+
+    /**
+     * Double the capacity of the backing arrays
+     */
+    private void grow() {
+        int capacity = this.elements.length * 2;
+        this.elements = Arrays.copyOf(this.elements, capacity);
+        this.probabilities = Arrays.copyOf(this.probabilities, capacity);
+    }
+}
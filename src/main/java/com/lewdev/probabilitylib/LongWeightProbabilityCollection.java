@@ -0,0 +1,417 @@
+/*
+ * Copyright (c) 2020 Lewys Davies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.lewdev.probabilitylib;
+
+import java.util.*;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * ProbabilityCollection with long probability shares, for collections whose
+ * total probability does not fit in an int.
+ * <p>
+ * While the total probability fits in an int, elements are selected in the same
+ * way as {@link ProbabilityCollection}, on int arithmetic. Once it does not, the
+ * end of every "block" is kept as a long and found with a binary search, O(log n).
+ * <p>
+ * Random numbers are drawn from a LongUnaryOperator, so the random number
+ * generator can cover the whole total probability.
+ *
+ * @param <E> Type of elements
+ */
+public final class LongWeightProbabilityCollection<E> {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final LongUnaryOperator randomOperator;
+    private final IntUnaryOperator intRandomOperator;
+    private final Selector selector = new Selector();
+    private long totalProbability = 0;
+
+    private Object[] objects = new Object[DEFAULT_CAPACITY];
+    private long[] probabilities = new long[DEFAULT_CAPACITY];
+    private int size = 0;
+
+    // Probabilities narrowed to ints for the selector, only valid while the total fits in an int
+    private int[] narrowProbabilities = new int[DEFAULT_CAPACITY];
+    private boolean narrowValid = true;
+
+    // End of each "block", exclusive, for when the total does not fit in an int. Only valid below validBlocks
+    private long[] blockEnds = new long[0];
+    private int validBlocks = 0;
+
+    /**
+     * Create a new LongWeightProbabilityCollection with a custom random number generator
+     *
+     * @param randomNumberGenerator Random number generator that returns a random number between 0 and n-1
+     */
+    public LongWeightProbabilityCollection(LongUnaryOperator randomNumberGenerator) {
+        this.randomOperator = randomNumberGenerator;
+        this.intRandomOperator = bound -> (int) randomNumberGenerator.applyAsLong(bound);
+    }
+
+    private LongWeightProbabilityCollection(SplittableRandom random) {
+        this(random::nextLong);
+    }
+
+    /**
+     * Create a new LongWeightProbabilityCollection with a default random number generator
+     */
+    public LongWeightProbabilityCollection() {
+        this(new SplittableRandom());
+    }
+
+    /**
+     * Create a new LongWeightProbabilityCollection with a default random number generator
+     *
+     * @param seed Seed for random number generator
+     */
+    public LongWeightProbabilityCollection(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    /**
+     * Get the total of objects in this collection
+     *
+     * @return Number of objects inside the collection
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Check if collection is empty
+     *
+     * @return True if collection contains no elements, else False
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Check if collection contains an object
+     *
+     * @return True if collection contains the object, else False
+     * @throws IllegalArgumentException if object is null
+     */
+    public boolean contains(E object) {
+        if (object == null) {
+            throw new IllegalArgumentException("Cannot check if null object is contained in this collection");
+        }
+
+        for (int i = 0; i < this.size; i++) {
+            if (this.objects[i].equals(object)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the iterator for this collection
+     *
+     * @return Iterator over this collection
+     */
+    public Iterator<ProbabilitySetElement<E>> iterator() {
+        return new Iterator<ProbabilitySetElement<E>>() {
+            private int index = 0;
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return this.index < size;
+            }
+
+            @Override
+            public ProbabilitySetElement<E> next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                this.last = this.index++;
+
+                @SuppressWarnings("unchecked")
+                E object = (E) objects[this.last];
+                return new ProbabilitySetElement<>(object, probabilities[this.last]);
+            }
+
+            @Override
+            public void remove() {
+                if (this.last < 0) {
+                    throw new IllegalStateException();
+                }
+
+                removeIndex(this.last);
+                this.index = this.last;
+                this.last = -1;
+            }
+        };
+    }
+
+    /**
+     * Add an object to this collection
+     *
+     * @param object      object. Not null.
+     * @param probability share. Must be greater than 0.
+     * @throws IllegalArgumentException if object is null
+     * @throws IllegalArgumentException if probability <= 0
+     * @throws IllegalArgumentException if the total probability would exceed Long.MAX_VALUE
+     */
+    public void add(E object, long probability) {
+        if (object == null) {
+            throw new IllegalArgumentException("Cannot add null object");
+        }
+
+        if (probability <= 0) {
+            throw new IllegalArgumentException("Probability must be greater than 0");
+        }
+
+        if (probability > Long.MAX_VALUE - this.totalProbability) {
+            throw new IllegalArgumentException("Total probability cannot exceed Long.MAX_VALUE");
+        }
+
+        if (this.size == this.objects.length) {
+            this.grow();
+        }
+
+        int index = this.size++;
+        this.objects[index] = object;
+        this.probabilities[index] = probability;
+        this.totalProbability += probability;
+
+        if (this.narrowValid && this.totalProbability <= Integer.MAX_VALUE) {
+            this.narrowProbabilities[index] = (int) probability;
+        } else {
+            this.narrowValid = false;
+        }
+        this.modified(index);
+    }
+
+    /**
+     * Remove an object from this collection
+     *
+     * @param object object
+     * @return True if object was removed, else False.
+     * @throws IllegalArgumentException if object is null
+     */
+    public boolean remove(E object) {
+        if (object == null) {
+            throw new IllegalArgumentException("Cannot remove null object");
+        }
+
+        // Remove all instances of the object, compacting the rest in one pass
+        int kept = 0;
+        int firstRemoved = -1;
+        for (int i = 0; i < this.size; i++) {
+            if (this.objects[i].equals(object)) {
+                this.totalProbability -= this.probabilities[i];
+                if (firstRemoved < 0) {
+                    firstRemoved = i;
+                }
+            } else {
+                this.objects[kept] = this.objects[i];
+                this.probabilities[kept] = this.probabilities[i];
+                kept++;
+            }
+        }
+
+        if (firstRemoved < 0) {
+            return false;
+        }
+
+        Arrays.fill(this.objects, kept, this.size, null);
+        this.size = kept;
+        this.narrowValid = false;
+        this.modified(firstRemoved);
+        return true;
+    }
+
+    /**
+     * Remove all objects from this collection
+     */
+    public void clear() {
+        Arrays.fill(this.objects, 0, this.size, null);
+        this.size = 0;
+        this.totalProbability = 0;
+        this.narrowValid = true;
+        this.modified(0);
+    }
+
+    /**
+     * Get a random object from this collection, based on probability.
+     *
+     * @return <E> Random object
+     * @throws IllegalStateException if this collection is empty
+     */
+    public E get() {
+        if (this.isEmpty()) {
+            throw new IllegalStateException("Cannot get an object out of a empty collection");
+        }
+
+        int index;
+        if (this.totalProbability <= Integer.MAX_VALUE) {
+            index = this.selector.select(this.narrowProbabilities(), this.size, (int) this.totalProbability, this.intRandomOperator);
+        } else {
+            index = this.selectWide();
+        }
+
+        @SuppressWarnings("unchecked")
+        E object = (E) this.objects[index];
+        return object;
+    }
+
+    /**
+     * Get the total probability of all elements in this collection
+     *
+     * @return Sum of all element's probability
+     */
+    public long getTotalProbability() {
+        return this.totalProbability;
+    }
+
+    /**
+     * Get the probabilities as ints, narrowing them again if they were invalidated.
+     * Only called while the total probability fits in an int.
+     *
+     * @return Probability share of each element, as ints
+     */
+    private int[] narrowProbabilities() {
+        if (!this.narrowValid) {
+            for (int i = 0; i < this.size; i++) {
+                this.narrowProbabilities[i] = (int) this.probabilities[i];
+            }
+            this.narrowValid = true;
+            this.selector.modified(0);
+        }
+        return this.narrowProbabilities;
+    }
+
+    /**
+     * Select a random index with long arithmetic, by binary search over the end
+     * of every "block"
+     *
+     * @return Index of the selected element
+     */
+    private int selectWide() {
+        if (this.blockEnds.length < this.size) {
+            this.blockEnds = Arrays.copyOf(this.blockEnds, Math.max(this.size, this.blockEnds.length * 2));
+        }
+
+        long end = this.validBlocks == 0 ? 0 : this.blockEnds[this.validBlocks - 1];
+        for (int i = this.validBlocks; i < this.size; i++) {
+            end += this.probabilities[i];
+            this.blockEnds[i] = end;
+        }
+        this.validBlocks = this.size;
+
+        long offset = this.randomOperator.applyAsLong(this.totalProbability);
+
+        // Find the first "block" that ends after the random number
+        int low = 0;
+        int high = this.size - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.blockEnds[mid] > offset) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Invalidate the cached "blocks" after the collection has been modified
+     *
+     * @param fromIndex first index whose probability, or position, changed
+     */
+    private void modified(int fromIndex) {
+        this.validBlocks = Math.min(this.validBlocks, fromIndex);
+        this.selector.modified(fromIndex);
+    }
+
+    /**
+     * Remove the element at an index, keeping the order of the rest
+     *
+     * @param index index of the element
+     */
+    private void removeIndex(int index) {
+        this.totalProbability -= this.probabilities[index];
+
+        int moved = this.size - index - 1;
+        System.arraycopy(this.objects, index + 1, this.objects, index, moved);
+        System.arraycopy(this.probabilities, index + 1, this.probabilities, index, moved);
+
+        this.objects[--this.size] = null;
+        this.narrowValid = false;
+        this.modified(index);
+    }
+
+    /**
+     * Double the capacity of the backing arrays
+     */
+    private void grow() {
+        int capacity = this.objects.length * 2;
+        this.objects = Arrays.copyOf(this.objects, capacity);
+        this.probabilities = Arrays.copyOf(this.probabilities, capacity);
+        this.narrowProbabilities = Arrays.copyOf(this.narrowProbabilities, capacity);
+    }
+
+    /**
+     * Information about an object's state in a collection.
+     * Specifically, the object and its probability share within the collection.
+     *
+     * @param <T> Type of element
+     */
+    public static final class ProbabilitySetElement<T> {
+        private final T object;
+        private final long probability;
+
+        /**
+         * Create a new pair of object and probability
+         *
+         * @param object      object
+         * @param probability share within the collection
+         */
+        ProbabilitySetElement(T object, long probability) {
+            this.object = object;
+            this.probability = probability;
+        }
+
+        /**
+         * Get the object
+         *
+         * @return <T> The actual object
+         */
+        public T getObject() {
+            return this.object;
+        }
+
+        /**
+         * Get the probability share of this object
+         *
+         * @return Probability share in this collection
+         */
+        public long getProbability() {
+            return this.probability;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2020 Lewys Davies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.lewdev.probabilitylib;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Random number generator where every thread draws from its own generator, so
+ * concurrent gets never share random state.
+ * <p>
+ * Unseeded, every thread uses {@link ThreadLocalRandom}. Seeded, every thread
+ * is given its own {@link SplittableRandom#split()} of a generator created from
+ * the seed, the first time it draws. The n-th thread to draw always receives
+ * the same stream, so runs that start drawing from their threads in the same
+ * order are reproducible.
+ */
+public final class PerThreadRandom implements IntUnaryOperator {
+    private final SplittableRandom root;
+    private final ThreadLocal<SplittableRandom> generators;
+
+    /**
+     * Create a new PerThreadRandom using {@link ThreadLocalRandom}
+     */
+    public PerThreadRandom() {
+        this.root = null;
+        this.generators = null;
+    }
+
+    /**
+     * Create a new PerThreadRandom with reproducible per-thread streams
+     *
+     * @param seed Seed for the generator every thread's generator is split from
+     */
+    public PerThreadRandom(long seed) {
+        this.root = new SplittableRandom(seed);
+        this.generators = ThreadLocal.withInitial(this::split);
+    }
+
+    /**
+     * Get a random number between 0 and bound-1, from the calling thread's generator
+     *
+     * @param bound upper bound, exclusive. Must be greater than 0.
+     * @return Random number
+     */
+    @Override
+    public int applyAsInt(int bound) {
+        if (this.generators == null) {
+            return ThreadLocalRandom.current().nextInt(bound);
+        }
+        return this.generators.get().nextInt(bound);
+    }
+
+    /**
+     * Split a new generator for a thread. SplittableRandom is not thread safe,
+     * so threads take turns.
+     */
+    private SplittableRandom split() {
+        synchronized (this.root) {
+            return this.root.split();
+        }
+    }
+}
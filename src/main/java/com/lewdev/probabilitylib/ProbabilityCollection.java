@@ -40,34 +40,104 @@ import java.util.function.IntUnaryOperator;
  * selected than those with smaller probability.
  * </p>
  * </ul>
+ * Elements are stored in contiguous arrays, and the "blocks" are found by a
+ * {@link Selector}, using the {@link SamplingStrategy} given when the collection
+ * is created. By default the strategy is chosen automatically: a few elements
+ * are scanned, and otherwise finding the "block" a random number falls in starts
+ * from a {@link GuideTable} bucket, expected O(1). After a modification only the
+ * "blocks" from the modified element onwards are recalculated.
+ * <br>
+ * Once the collection has been read as many times as it has elements without
+ * being modified, the "blocks" are laid out in an {@link AliasTable}, so each
+ * get is O(1) regardless of the size of the collection. The table is only
+ * rebuilt after the collection has been modified and read enough times again.
+ * Large collections that are modified more often than they are read switch to a
+ * Fenwick tree, which keeps up with each modification in O(log n).
+ * <p>
+ * Every object's position is kept in a hash index, so contains, remove and
+ * getProbability are O(1) expected, for objects with a consistent hashCode. The
+ * index is an {@link IndexTable} of int positions, so it does not allocate per object.
+ * Removing an element moves the last element into its place, so element order
+ * is only preserved while elements are added.
+ * <p>
+ * ProbabilityCollection is not thread safe, not even for reads: get lays out
+ * selection tables and counts reads as it goes, so concurrent gets, like any
+ * other concurrent use, need external synchronization. The default random number
+ * generator is a {@link PerThreadRandom}, so random state is never shared between
+ * threads. To share a collection between threads, use
+ * {@link ConcurrentProbabilityCollection} or {@link StampedProbabilityCollection}.
+ * A collection that is only read once built can be copied with
+ * {@link #toImmutable()} instead.
  *
  * @param <E> Type of elements
  * @author Lewys Davies
  * @version 0.8
  */
 public final class ProbabilityCollection<E> {
-    private final List<ProbabilitySetElement<E>> collection = new LinkedList<>();
+    private static final int DEFAULT_CAPACITY = 16;
+
     private final IntUnaryOperator randomOperator;
+    private final Selector selector;
+    // Index of every object, further duplicates are chained through nextIndex and previousIndex
+    private final IndexTable firstIndex = new IndexTable();
     private int totalProbability = 0;
 
+    private Object[] objects = new Object[DEFAULT_CAPACITY];
+    private int[] probabilities = new int[DEFAULT_CAPACITY];
+    private int[] nextIndex = new int[DEFAULT_CAPACITY];
+    private int[] previousIndex = new int[DEFAULT_CAPACITY];
+    private int size = 0;
+
+    // Working space for weightedShuffle, kept so filling an array does not allocate
+    private double[] arrivals = new double[0];
+
     /**
      * Create a new ProbabilityCollection with a custom random number generator
      *
      * @param randomNumberGenerator Random number generator that returns a random number between 0 and n-1
      */
     public ProbabilityCollection(IntUnaryOperator randomNumberGenerator) {
+        this(randomNumberGenerator, SamplingStrategy.AUTOMATIC);
+    }
+
+    /**
+     * Create a new ProbabilityCollection with a custom random number generator and
+     * sampling strategy
+     *
+     * @param randomNumberGenerator Random number generator that returns a random number between 0 and n-1
+     * @param strategy              how random elements are found. Not null.
+     * @throws IllegalArgumentException if strategy is null
+     */
+    public ProbabilityCollection(IntUnaryOperator randomNumberGenerator, SamplingStrategy strategy) {
+        if (strategy == null) {
+            throw new IllegalArgumentException("Sampling strategy cannot be null");
+        }
+
         this.randomOperator = randomNumberGenerator;
+        this.selector = new Selector(strategy);
     }
 
-    private ProbabilityCollection(SplittableRandom random) {
-        this(random::nextInt);
+    private ProbabilityCollection(SplittableRandom random, SamplingStrategy strategy) {
+        this(random::nextInt, strategy);
     }
 
     /**
-     * Create a new ProbabilityCollection with a default random number generator
+     * Create a new ProbabilityCollection with a default random number generator, a
+     * {@link PerThreadRandom}
      */
     public ProbabilityCollection() {
-        this(new SplittableRandom());
+        this(new PerThreadRandom(), SamplingStrategy.AUTOMATIC);
+    }
+
+    /**
+     * Create a new ProbabilityCollection with a default random number generator, a
+     * {@link PerThreadRandom}, and a sampling strategy
+     *
+     * @param strategy how random elements are found. Not null.
+     * @throws IllegalArgumentException if strategy is null
+     */
+    public ProbabilityCollection(SamplingStrategy strategy) {
+        this(new PerThreadRandom(), strategy);
     }
 
     /**
@@ -76,7 +146,19 @@ public final class ProbabilityCollection<E> {
      * @param seed Seed for random number generator
      */
     public ProbabilityCollection(long seed) {
-        this(new SplittableRandom(seed));
+        this(new SplittableRandom(seed), SamplingStrategy.AUTOMATIC);
+    }
+
+    /**
+     * Create a new ProbabilityCollection with a default random number generator and
+     * a sampling strategy
+     *
+     * @param seed     Seed for random number generator
+     * @param strategy how random elements are found. Not null.
+     * @throws IllegalArgumentException if strategy is null
+     */
+    public ProbabilityCollection(long seed, SamplingStrategy strategy) {
+        this(new SplittableRandom(seed), strategy);
     }
 
     /**
@@ -85,7 +167,7 @@ public final class ProbabilityCollection<E> {
      * @return Number of objects inside the collection
      */
     public int size() {
-        return this.collection.size();
+        return this.size;
     }
 
     /**
@@ -94,11 +176,11 @@ public final class ProbabilityCollection<E> {
      * @return True if collection contains no elements, else False
      */
     public boolean isEmpty() {
-        return this.collection.isEmpty();
+        return this.size == 0;
     }
 
     /**
-     * Check if collection contains an object
+     * Check if collection contains an object, in O(1) expected
      *
      * @return True if collection contains the object, else False
      * @throws IllegalArgumentException if object is null
@@ -108,12 +190,32 @@ public final class ProbabilityCollection<E> {
             throw new IllegalArgumentException("Cannot check if null object is contained in this collection");
         }
 
-        for (ProbabilitySetElement<E> entry : this.collection) {
-            if (entry.getObject().equals(object)) {
-                return true;
-            }
+        return this.firstIndex.get(this.objects, object) != -1;
+    }
+
+    /**
+     * Get the probability share of an object, in O(1) expected
+     *
+     * @param object object. Not null.
+     * @return Probability share of every instance of the object combined, 0 if the
+     * object is not in this collection
+     * @throws IllegalArgumentException if object is null
+     */
+    public int getProbability(E object) {
+        if (object == null) {
+            throw new IllegalArgumentException("Cannot get the probability of a null object");
+        }
+
+        int first = this.firstIndex.get(this.objects, object);
+        if (first == -1) {
+            return 0;
+        }
+
+        int probability = 0;
+        for (int i = first; i != -1; i = this.nextIndex[i]) {
+            probability += this.probabilities[i];
         }
-        return false;
+        return probability;
     }
 
     /**
@@ -122,7 +224,39 @@ public final class ProbabilityCollection<E> {
      * @return Iterator over this collection
      */
     public Iterator<ProbabilitySetElement<E>> iterator() {
-        return this.collection.iterator();
+        return new Iterator<ProbabilitySetElement<E>>() {
+            private int index = 0;
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return this.index < size;
+            }
+
+            @Override
+            public ProbabilitySetElement<E> next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                this.last = this.index++;
+
+                @SuppressWarnings("unchecked")
+                E object = (E) objects[this.last];
+                return new ProbabilitySetElement<>(object, probabilities[this.last]);
+            }
+
+            @Override
+            public void remove() {
+                if (this.last < 0) {
+                    throw new IllegalStateException();
+                }
+
+                removeIndex(this.last);
+                this.index = this.last;
+                this.last = -1;
+            }
+        };
     }
 
     /**
@@ -132,6 +266,7 @@ public final class ProbabilityCollection<E> {
      * @param probability share. Must be greater than 0.
      * @throws IllegalArgumentException if object is null
      * @throws IllegalArgumentException if probability <= 0
+     * @throws IllegalArgumentException if the total probability would exceed Integer.MAX_VALUE
      */
     public void add(E object, int probability) {
         if (object == null) {
@@ -142,14 +277,68 @@ public final class ProbabilityCollection<E> {
             throw new IllegalArgumentException("Probability must be greater than 0");
         }
 
-        ProbabilitySetElement<E> entry = new ProbabilitySetElement<>(object, probability);
+        this.checkTotal(probability);
+
+        this.ensureCapacity(this.size + 1);
+
+        this.objects[this.size] = object;
+        this.probabilities[this.size] = probability;
+        this.size++;
+        this.indexFrom(this.size - 1);
+    }
+
+    /**
+     * Add every object in a map to this collection, with its value as its probability
+     * share. The map is validated before anything is added, and the backing arrays
+     * are grown at most once.
+     *
+     * @param objects objects and their probability shares. Not null.
+     * @throws IllegalArgumentException if objects is null
+     * @throws IllegalArgumentException if any object is null
+     * @throws IllegalArgumentException if any probability is null or <= 0
+     * @throws IllegalArgumentException if the total probability would exceed Integer.MAX_VALUE
+     */
+    public void addAll(Map<? extends E, Integer> objects) {
+        this.checkTotal(validate(objects));
+
+        this.ensureCapacity(this.size + objects.size());
+
+        int from = this.size;
+        for (Map.Entry<? extends E, Integer> entry : objects.entrySet()) {
+            this.objects[this.size] = entry.getKey();
+            this.probabilities[this.size] = entry.getValue();
+            this.size++;
+        }
+        this.indexFrom(from);
+    }
+
+    /**
+     * Add every object in an array to this collection, with the probability share at
+     * the same index. The arrays are validated before anything is added, and the
+     * backing arrays are grown at most once.
+     *
+     * @param objects       objects. Not null.
+     * @param probabilities probability share of each object, the same length as objects. Not null.
+     * @throws IllegalArgumentException if either array is null, or they differ in length
+     * @throws IllegalArgumentException if any object is null
+     * @throws IllegalArgumentException if any probability <= 0
+     * @throws IllegalArgumentException if the total probability would exceed Integer.MAX_VALUE
+     */
+    public void addAll(E[] objects, int[] probabilities) {
+        this.checkTotal(validate(objects, probabilities));
+
+        int count = objects.length;
+        this.ensureCapacity(this.size + count);
+        System.arraycopy(objects, 0, this.objects, this.size, count);
+        System.arraycopy(probabilities, 0, this.probabilities, this.size, count);
 
-        this.collection.add(entry);
-        this.totalProbability += probability;
+        int from = this.size;
+        this.size += count;
+        this.indexFrom(from);
     }
 
     /**
-     * Remove an object from this collection
+     * Remove an object from this collection, in O(1) expected per instance of the object
      *
      * @param object object
      * @return True if object was removed, else False.
@@ -160,28 +349,82 @@ public final class ProbabilityCollection<E> {
             throw new IllegalArgumentException("Cannot remove null object");
         }
 
-        Iterator<ProbabilitySetElement<E>> it = this.iterator();
-        boolean removed = false;
+        int first = this.firstIndex.get(this.objects, object);
+        if (first == -1) {
+            return false;
+        }
 
-        // Remove all instances of the object
-        while (it.hasNext()) {
-            ProbabilitySetElement<E> entry = it.next();
-            if (entry.getObject().equals(object)) {
-                this.totalProbability -= entry.getProbability();
-                it.remove();
-                removed = true;
-            }
+        // Remove all instances of the object, each removal unlinks the first
+        for (; first != -1; first = this.firstIndex.get(this.objects, object)) {
+            this.removeIndex(first);
+        }
+        return true;
+    }
+
+    /**
+     * Set the probability share of an object, in O(1) expected. An object that is in
+     * this collection once keeps its place. If the object is in this collection more
+     * than once, its instances are merged into one and the others are removed, which
+     * moves the last elements into their places. An object that is not in this
+     * collection is added. Nothing is changed if an exception is thrown.
+     *
+     * @param object      object. Not null.
+     * @param probability share. 0 removes the object from this collection.
+     * @throws IllegalArgumentException if object is null
+     * @throws IllegalArgumentException if probability < 0
+     * @throws IllegalArgumentException if the total probability would exceed Integer.MAX_VALUE
+     */
+    public void setProbability(E object, int probability) {
+        if (object == null) {
+            throw new IllegalArgumentException("Cannot set the probability of a null object");
+        }
+
+        if (probability < 0) {
+            throw new IllegalArgumentException("Probability cannot be negative");
+        }
+
+        this.checkTotal((long) probability - this.getProbability(object));
+        this.setProbability(object, this.merge(object), probability);
+    }
+
+    /**
+     * Change the probability share of an object by an amount, in O(1) expected. An
+     * object that is in this collection once keeps its place. If the object is in
+     * this collection more than once, its instances are merged into one and the
+     * others are removed, which moves the last elements into their places. An
+     * object that is not in this collection is added. Nothing is changed if an
+     * exception is thrown.
+     *
+     * @param object object. Not null.
+     * @param amount to change the probability share by. The share cannot become negative.
+     * @throws IllegalArgumentException if object is null
+     * @throws IllegalArgumentException if the probability share would become negative
+     * @throws IllegalArgumentException if the total probability would exceed Integer.MAX_VALUE
+     */
+    public void addProbability(E object, int amount) {
+        if (object == null) {
+            throw new IllegalArgumentException("Cannot set the probability of a null object");
+        }
+
+        // Checked against every instance combined, before any are merged
+        long probability = (long) this.getProbability(object) + amount;
+        if (probability < 0) {
+            throw new IllegalArgumentException("Probability cannot be negative");
         }
 
-        return removed;
+        this.checkTotal(amount);
+        this.setProbability(object, this.merge(object), (int) probability);
     }
 
     /**
      * Remove all objects from this collection
      */
     public void clear() {
-        this.collection.clear();
+        Arrays.fill(this.objects, 0, this.size, null);
+        this.firstIndex.clear();
+        this.size = 0;
         this.totalProbability = 0;
+        this.selector.modified(0);
     }
 
     /**
@@ -195,17 +438,213 @@ public final class ProbabilityCollection<E> {
             throw new IllegalStateException("Cannot get an object out of a empty collection");
         }
 
-        int random = this.randomOperator.applyAsInt(this.totalProbability);
+        int index = this.selector.select(this.probabilities, this.size, this.totalProbability, this.randomOperator);
+
+        @SuppressWarnings("unchecked")
+        E object = (E) this.objects[index];
+        return object;
+    }
+
+    /**
+     * Get many random objects from this collection, based on probability.
+     *
+     * @param count number of objects to get. Must be 0 or greater.
+     * @return List of count random objects, in the order they were selected
+     * @throws IllegalArgumentException if count < 0
+     * @throws IllegalStateException if this collection is empty
+     */
+    public List<E> get(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count cannot be negative");
+        }
+
+        @SuppressWarnings("unchecked")
+        E[] objects = (E[]) new Object[count];
+        return Arrays.asList(this.get(objects));
+    }
+
+    /**
+     * Fill an array with random objects from this collection, based on probability.
+     * Cheaper per object than calling {@link #get()} repeatedly, as the collection
+     * is only checked once and the selection table is prepared for the whole batch.
+     *
+     * @param out array to fill. Not null.
+     * @return The same array, filled
+     * @throws IllegalArgumentException if out is null
+     * @throws IllegalStateException if this collection is empty
+     */
+    public E[] get(E[] out) {
+        if (out == null) {
+            throw new IllegalArgumentException("Cannot fill a null array");
+        }
+
+        if (this.isEmpty()) {
+            throw new IllegalStateException("Cannot get an object out of a empty collection");
+        }
+
+        Object[] objects = this.objects;
+        int[] probabilities = this.probabilities;
+        int size = this.size;
+        int totalProbability = this.totalProbability;
+
+        this.selector.prepare(out.length, probabilities, size, totalProbability);
+        for (int i = 0; i < out.length; i++) {
+            @SuppressWarnings("unchecked")
+            E object = (E) objects[this.selector.select(probabilities, size, totalProbability, this.randomOperator)];
+            out[i] = object;
+        }
+        return out;
+    }
+
+    /**
+     * Get random objects from this collection, based on probability, without
+     * selecting any object twice. The same as getting an object, removing it and
+     * getting again, but the collection is not modified. Takes O(n log k) time.
+     * <p>
+     * Duplicate objects are treated as one object, with their probability shares
+     * added together.
+     *
+     * @param count maximum number of objects to get. Must be 0 or greater.
+     * @return List of up to count distinct objects, in the order they were selected
+     * @throws IllegalArgumentException if count < 0
+     * @throws IllegalStateException if this collection is empty
+     */
+    public List<E> getDistinct(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count cannot be negative");
+        }
+
+        if (this.isEmpty()) {
+            throw new IllegalStateException("Cannot get an object out of a empty collection");
+        }
+
+        // An object arrives when the first of its duplicates does
+        Map<E, Double> arrivals = new HashMap<>();
+        for (int i = 0; i < this.size; i++) {
+            @SuppressWarnings("unchecked")
+            E object = (E) this.objects[i];
+            arrivals.merge(object, WeightedOrder.arrival(this.probabilities[i], this.randomOperator), Math::min);
+        }
 
-        int index = 0;
-        for (ProbabilitySetElement<E> entry : this.collection) {
-            index += entry.getProbability();
-            if (random < index) {
-                return entry.getObject();
+        // Keep the count earliest arrivals, latest at the head so it can be replaced
+        int kept = Math.min(count, arrivals.size());
+        PriorityQueue<Map.Entry<E, Double>> earliest = new PriorityQueue<>(Math.max(1, kept),
+                Map.Entry.<E, Double>comparingByValue().reversed());
+        for (Map.Entry<E, Double> arrival : arrivals.entrySet()) {
+            if (earliest.size() < kept) {
+                earliest.add(arrival);
+            } else if (kept > 0 && arrival.getValue() < earliest.peek().getValue()) {
+                earliest.poll();
+                earliest.add(arrival);
             }
         }
 
-        throw new IllegalStateException("Failed to get an object from the collection");
+        @SuppressWarnings("unchecked")
+        E[] selected = (E[]) new Object[kept];
+        for (int i = kept - 1; i >= 0; i--) {
+            selected[i] = earliest.poll().getKey();
+        }
+        return Arrays.asList(selected);
+    }
+
+    /**
+     * Get every object in this collection in a random order, based on probability.
+     * The same as repeatedly drawing one entry by probability without replacement
+     * until none are left, with duplicate objects treated as separate entries, so
+     * an object added twice appears twice. The collection is not modified. Takes
+     * O(n log n) time.
+     *
+     * @return List of every object, in the order they were selected
+     */
+    public List<E> weightedShuffle() {
+        @SuppressWarnings("unchecked")
+        E[] objects = (E[]) new Object[this.size];
+        return Arrays.asList(this.weightedShuffle(objects));
+    }
+
+    /**
+     * Fill an array with every object in this collection in a random order, based
+     * on probability. The same as repeatedly drawing one entry by probability
+     * without replacement until none are left, with duplicate objects treated as
+     * separate entries, so an object added twice appears twice. The collection is
+     * not modified. Takes O(n log n) time, and does not allocate unless the
+     * collection has grown since the last call.
+     *
+     * @param out array to fill, at least {@link #size()} long. Not null.
+     * @return The same array, filled from index 0
+     * @throws IllegalArgumentException if out is null or shorter than the collection
+     */
+    public E[] weightedShuffle(E[] out) {
+        if (out == null) {
+            throw new IllegalArgumentException("Cannot fill a null array");
+        }
+
+        if (out.length < this.size) {
+            throw new IllegalArgumentException("Array is too short to hold every object");
+        }
+
+        if (this.arrivals.length < this.size) {
+            this.arrivals = new double[this.objects.length];
+        }
+
+        WeightedOrder.order(this.probabilities, this.objects, this.size, this.randomOperator, this.arrivals, out);
+        return out;
+    }
+
+    /**
+     * Count how many times each object is selected by a number of gets, without
+     * making each get. Takes O(n) expected time for n elements, for up to 2^50 gets,
+     * and O(n * count / 2^50) past that.
+     *
+     * @param count number of gets. Must be 0 or greater.
+     * @return Number of times each object was selected, in collection order.
+     * Duplicate objects are counted together.
+     * @throws IllegalArgumentException if count < 0
+     * @throws IllegalStateException if this collection is empty
+     */
+    public Map<E, Long> sampleCounts(long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count cannot be negative");
+        }
+
+        if (this.isEmpty()) {
+            throw new IllegalStateException("Cannot get an object out of a empty collection");
+        }
+
+        long[] counts = Binomial.multinomial(this.probabilities, this.size, this.totalProbability, count, this.randomOperator);
+
+        Map<E, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < this.size; i++) {
+            @SuppressWarnings("unchecked")
+            E object = (E) this.objects[i];
+            result.merge(object, counts[i], Long::sum);
+        }
+        return result;
+    }
+
+    /**
+     * Copy this collection into an {@link ImmutableProbabilityCollection}, which can be
+     * shared between threads. Every thread draws from
+     * {@link java.util.concurrent.ThreadLocalRandom}. Later modifications to this
+     * collection are not reflected in the copy.
+     *
+     * @return Read only copy of this collection
+     */
+    public ImmutableProbabilityCollection<E> toImmutable() {
+        return this.toImmutable(new PerThreadRandom());
+    }
+
+    /**
+     * Copy this collection into an {@link ImmutableProbabilityCollection}. Later
+     * modifications to this collection are not reflected in the copy.
+     *
+     * @param randomNumberGenerator Random number generator that returns a random number between 0 and n-1.
+     *                              Must be thread safe if the copy is shared between threads.
+     * @return Read only copy of this collection
+     */
+    public ImmutableProbabilityCollection<E> toImmutable(IntUnaryOperator randomNumberGenerator) {
+        return new ImmutableProbabilityCollection<>(this.objects, this.probabilities, this.size,
+                this.totalProbability, randomNumberGenerator);
     }
 
     /**
@@ -218,11 +657,440 @@ public final class ProbabilityCollection<E> {
     }
 
     /**
-     * Used internally to store information about an object's state in a collection.
-     * Specifically, the probability and index within the collection.
+     * Set the probability share of the merged instance of an object
+     *
+     * @param object      object
+     * @param index       index of the object, or -1 if it is not in this collection
+     * @param probability share, 0 or greater, already checked against the total probability
+     */
+    private void setProbability(E object, int index, int probability) {
+        if (index < 0) {
+            if (probability > 0) {
+                this.add(object, probability);
+            }
+            return;
+        }
+
+        if (probability == 0) {
+            this.removeIndex(index);
+            return;
+        }
+
+        this.selector.changed(index, probability - this.probabilities[index]);
+        this.totalProbability += probability - this.probabilities[index];
+        this.probabilities[index] = probability;
+    }
+
+    /**
+     * Merge every instance of an object into the first in its chain
+     *
+     * @param object object
+     * @return Index of the merged instance, or -1 if the object is not in this collection
+     */
+    private int merge(E object) {
+        int merged = this.firstIndex.get(this.objects, object);
+        if (merged == -1) {
+            return -1;
+        }
+
+        while (this.nextIndex[merged] != -1) {
+            int duplicate = this.nextIndex[merged];
+            int probability = this.probabilities[duplicate];
+            this.removeIndex(duplicate);
+
+            // The merged instance may have been moved into the removed index
+            merged = this.firstIndex.get(this.objects, object);
+            this.probabilities[merged] += probability;
+            this.totalProbability += probability;
+            this.selector.changed(merged, probability);
+        }
+        return merged;
+    }
+
+    /**
+     * Remove the element at an index, moving the last element into its place
+     *
+     * @param index index of the element
+     */
+    private void removeIndex(int index) {
+        this.unlink(index);
+        this.totalProbability -= this.probabilities[index];
+
+        int last = --this.size;
+        if (index != last) {
+            this.selector.changed(index, this.probabilities[last] - this.probabilities[index]);
+            this.objects[index] = this.objects[last];
+            this.probabilities[index] = this.probabilities[last];
+
+            int previous = this.previousIndex[last];
+            int next = this.nextIndex[last];
+            this.previousIndex[index] = previous;
+            this.nextIndex[index] = next;
+
+            if (previous != -1) {
+                this.nextIndex[previous] = index;
+            } else {
+                this.firstIndex.move(this.objects[index], last, index);
+            }
+            if (next != -1) {
+                this.previousIndex[next] = index;
+            }
+        }
+
+        this.objects[last] = null;
+        this.selector.modified(last);
+    }
+
+    /**
+     * Unlink an element from the other instances of its object
+     *
+     * @param index index of the element
+     */
+    private void unlink(int index) {
+        int previous = this.previousIndex[index];
+        int next = this.nextIndex[index];
+
+        if (next != -1) {
+            this.previousIndex[next] = previous;
+        }
+
+        if (previous != -1) {
+            this.nextIndex[previous] = next;
+        } else {
+            if (next != -1) {
+                this.firstIndex.move(this.objects[index], index, next);
+            } else {
+                this.firstIndex.remove(this.objects, this.objects[index], index);
+            }
+        }
+    }
+
+    /**
+     * Index the elements from an index to the end, and add them to the total
+     * probability, in one pass
+     *
+     * @param from index of the first element that has not been indexed
+     */
+    private void indexFrom(int from) {
+        this.firstIndex.ensureCapacity(this.objects, this.size);
+
+        for (int index = from; index < this.size; index++) {
+            Object object = this.objects[index];
+
+            // The newest instance becomes the first in its chain
+            int first = this.firstIndex.get(this.objects, object);
+            if (first == -1) {
+                this.firstIndex.add(this.objects, index);
+            } else {
+                this.firstIndex.move(object, first, index);
+                this.previousIndex[first] = index;
+            }
+            this.nextIndex[index] = first;
+            this.previousIndex[index] = -1;
+
+            this.totalProbability += this.probabilities[index];
+        }
+        this.selector.modified(from);
+    }
+
+    /**
+     * Grow the backing arrays to hold at least a number of elements, at least
+     * doubling their capacity
+     *
+     * @param minCapacity number of elements to hold
+     */
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity <= this.objects.length) {
+            return;
+        }
+
+        int capacity = Math.max(minCapacity, this.objects.length * 2);
+        this.objects = Arrays.copyOf(this.objects, capacity);
+        this.probabilities = Arrays.copyOf(this.probabilities, capacity);
+        this.nextIndex = Arrays.copyOf(this.nextIndex, capacity);
+        this.previousIndex = Arrays.copyOf(this.previousIndex, capacity);
+    }
+
+    /**
+     * Check the total probability can grow by an amount without overflowing
+     *
+     * @param added amount the total probability would grow by
+     * @throws IllegalArgumentException if the total probability would exceed Integer.MAX_VALUE
+     */
+    private void checkTotal(long added) {
+        if (added > Integer.MAX_VALUE - this.totalProbability) {
+            throw new IllegalArgumentException("Total probability cannot exceed Integer.MAX_VALUE");
+        }
+    }
+
+    /**
+     * Check an object can be added to a collection
+     *
+     * @param object      object
+     * @param probability share
+     * @throws IllegalArgumentException if object is null
+     * @throws IllegalArgumentException if probability is null or <= 0
+     */
+    private static void validate(Object object, Integer probability) {
+        if (object == null) {
+            throw new IllegalArgumentException("Cannot add null object");
+        }
+
+        if (probability == null || probability <= 0) {
+            throw new IllegalArgumentException("Probability must be greater than 0");
+        }
+    }
+
+    /**
+     * Check every object in a map can be added to a collection
+     *
+     * @param objects objects and their probability shares
+     * @return Sum of the probability shares
+     * @throws IllegalArgumentException if objects is null
+     * @throws IllegalArgumentException if any object is null
+     * @throws IllegalArgumentException if any probability is null or <= 0
+     */
+    private static long validate(Map<?, Integer> objects) {
+        if (objects == null) {
+            throw new IllegalArgumentException("Cannot add a null map");
+        }
+
+        long total = 0;
+        for (Map.Entry<?, Integer> entry : objects.entrySet()) {
+            validate(entry.getKey(), entry.getValue());
+            total += entry.getValue();
+        }
+        return total;
+    }
+
+    /**
+     * Check every object in an array can be added to a collection
+     *
+     * @param objects       objects
+     * @param probabilities probability share of each object
+     * @return Sum of the probability shares
+     * @throws IllegalArgumentException if either array is null, or they differ in length
+     * @throws IllegalArgumentException if any object is null
+     * @throws IllegalArgumentException if any probability <= 0
+     */
+    private static long validate(Object[] objects, int[] probabilities) {
+        if (objects == null || probabilities == null) {
+            throw new IllegalArgumentException("Cannot add a null array");
+        }
+
+        if (objects.length != probabilities.length) {
+            throw new IllegalArgumentException("Objects and probabilities must be the same length");
+        }
+
+        long total = 0;
+        for (int i = 0; i < objects.length; i++) {
+            validate(objects[i], probabilities[i]);
+            total += probabilities[i];
+        }
+        return total;
+    }
+
+    /**
+     * Create a new Builder, for building a collection from many objects at once
+     *
+     * @param <E> Type of elements
+     * @return New Builder
+     */
+    public static <E> Builder<E> builder() {
+        return new Builder<>(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a new Builder, for building a collection from many objects at once
+     *
+     * @param expectedSize number of objects the collection is expected to hold. Must be 0 or greater.
+     * @param <E>          Type of elements
+     * @return New Builder, with room for expectedSize objects
+     * @throws IllegalArgumentException if expectedSize < 0
+     */
+    public static <E> Builder<E> builder(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size cannot be negative");
+        }
+
+        return new Builder<>(expectedSize);
+    }
+
+    /**
+     * Builder for a ProbabilityCollection.
      * <p>
-     * Indexes refer to the start position of this element's "block" of space. The
-     * space between element "block"s represents their probability of being selected
+     * Objects are validated as they are added and collected into plain arrays.
+     * {@link #build()} hands the arrays to the new collection without copying them,
+     * and indexes every object in one pass.
+     *
+     * @param <E> Type of elements
+     */
+    public static final class Builder<E> {
+        private IntUnaryOperator randomOperator;
+        private SamplingStrategy strategy = SamplingStrategy.AUTOMATIC;
+        private Object[] objects;
+        private int[] probabilities;
+        private int size = 0;
+        private int totalProbability = 0;
+
+        private Builder(int expectedSize) {
+            // At least 1, so the arrays can be doubled
+            int capacity = Math.max(expectedSize, 1);
+            this.objects = new Object[capacity];
+            this.probabilities = new int[capacity];
+        }
+
+        /**
+         * Use a custom random number generator
+         *
+         * @param randomNumberGenerator Random number generator that returns a random number between 0 and n-1
+         * @return This Builder
+         */
+        public Builder<E> randomNumberGenerator(IntUnaryOperator randomNumberGenerator) {
+            this.randomOperator = randomNumberGenerator;
+            return this;
+        }
+
+        /**
+         * Use a default random number generator with a seed
+         *
+         * @param seed Seed for random number generator
+         * @return This Builder
+         */
+        public Builder<E> seed(long seed) {
+            this.randomOperator = new SplittableRandom(seed)::nextInt;
+            return this;
+        }
+
+        /**
+         * Use a sampling strategy other than {@link SamplingStrategy#AUTOMATIC}
+         *
+         * @param strategy how random elements are found. Not null.
+         * @return This Builder
+         * @throws IllegalArgumentException if strategy is null
+         */
+        public Builder<E> samplingStrategy(SamplingStrategy strategy) {
+            if (strategy == null) {
+                throw new IllegalArgumentException("Sampling strategy cannot be null");
+            }
+
+            this.strategy = strategy;
+            return this;
+        }
+
+        /**
+         * Add an object
+         *
+         * @param object      object. Not null.
+         * @param probability share. Must be greater than 0.
+         * @return This Builder
+         * @throws IllegalArgumentException if object is null
+         * @throws IllegalArgumentException if probability <= 0
+         * @throws IllegalArgumentException if the total probability would exceed Integer.MAX_VALUE
+         */
+        public Builder<E> add(E object, int probability) {
+            validate(object, probability);
+            this.addTotal(probability);
+
+            this.ensureCapacity(this.size + 1);
+            this.objects[this.size] = object;
+            this.probabilities[this.size] = probability;
+            this.size++;
+            return this;
+        }
+
+        /**
+         * Add every object in a map, with its value as its probability share
+         *
+         * @param objects objects and their probability shares. Not null.
+         * @return This Builder
+         * @throws IllegalArgumentException if objects is null
+         * @throws IllegalArgumentException if any object is null
+         * @throws IllegalArgumentException if any probability is null or <= 0
+         * @throws IllegalArgumentException if the total probability would exceed Integer.MAX_VALUE
+         * @see ProbabilityCollection#addAll(Map)
+         */
+        public Builder<E> addAll(Map<? extends E, Integer> objects) {
+            this.addTotal(validate(objects));
+
+            this.ensureCapacity(this.size + objects.size());
+            for (Map.Entry<? extends E, Integer> entry : objects.entrySet()) {
+                this.objects[this.size] = entry.getKey();
+                this.probabilities[this.size] = entry.getValue();
+                this.size++;
+            }
+            return this;
+        }
+
+        /**
+         * Add every object in an array, with the probability share at the same index
+         *
+         * @param objects       objects. Not null.
+         * @param probabilities probability share of each object, the same length as objects. Not null.
+         * @return This Builder
+         * @throws IllegalArgumentException if either array is null, or they differ in length
+         * @throws IllegalArgumentException if any object is null
+         * @throws IllegalArgumentException if any probability <= 0
+         * @throws IllegalArgumentException if the total probability would exceed Integer.MAX_VALUE
+         * @see ProbabilityCollection#addAll(Object[], int[])
+         */
+        public Builder<E> addAll(E[] objects, int[] probabilities) {
+            this.addTotal(validate(objects, probabilities));
+
+            int count = objects.length;
+            this.ensureCapacity(this.size + count);
+            System.arraycopy(objects, 0, this.objects, this.size, count);
+            System.arraycopy(probabilities, 0, this.probabilities, this.size, count);
+            this.size += count;
+            return this;
+        }
+
+        /**
+         * Build a ProbabilityCollection of every object added so far. This Builder is
+         * left empty, and can be used again.
+         *
+         * @return New ProbabilityCollection
+         */
+        public ProbabilityCollection<E> build() {
+            ProbabilityCollection<E> collection = this.randomOperator == null
+                    ? new ProbabilityCollection<>(this.strategy)
+                    : new ProbabilityCollection<>(this.randomOperator, this.strategy);
+
+            collection.objects = this.objects;
+            collection.probabilities = this.probabilities;
+            collection.nextIndex = new int[this.objects.length];
+            collection.previousIndex = new int[this.objects.length];
+            collection.size = this.size;
+            collection.indexFrom(0);
+
+            this.objects = new Object[DEFAULT_CAPACITY];
+            this.probabilities = new int[DEFAULT_CAPACITY];
+            this.size = 0;
+            this.totalProbability = 0;
+            return collection;
+        }
+
+        private void addTotal(long added) {
+            if (added > Integer.MAX_VALUE - this.totalProbability) {
+                throw new IllegalArgumentException("Total probability cannot exceed Integer.MAX_VALUE");
+            }
+            this.totalProbability += (int) added;
+        }
+
+        private void ensureCapacity(int minCapacity) {
+            if (minCapacity <= this.objects.length) {
+                return;
+            }
+
+            int capacity = Math.max(minCapacity, this.objects.length * 2);
+            this.objects = Arrays.copyOf(this.objects, capacity);
+            this.probabilities = Arrays.copyOf(this.probabilities, capacity);
+        }
+    }
+
+    /**
+     * Information about an object's state in a collection.
+     * Specifically, the object and its probability share within the collection.
      *
      * @param <T> Type of element
      * @author Lewys Davies
@@ -237,7 +1105,7 @@ public final class ProbabilityCollection<E> {
          * @param object      object
          * @param probability share within the collection
          */
-        private ProbabilitySetElement(T object, int probability) {
+        ProbabilitySetElement(T object, int probability) {
             this.object = object;
             this.probability = probability;
         }
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2020 Lewys Davies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.lewdev.probabilitylib;
+
+/**
+ * How a {@link ProbabilityCollection} finds the element a random number falls in.
+ * <p>
+ * Each strategy trades the cost of a get against the cost of keeping its table
+ * up to date after the collection is modified. Modifications only mark the table
+ * out of date, it is recalculated by the next get.
+ * <p>
+ * {@link #AUTOMATIC} suits most collections. The others are for collections whose
+ * size and use are known in advance, and for comparing strategies.
+ */
+public enum SamplingStrategy {
+    /**
+     * Choose a strategy from the size of the collection and how many gets are
+     * made between modifications, changing strategy as either changes.
+     * <ul>
+     * <li>Up to 8 elements are scanned, {@link #LINEAR}
+     * <li>After as many gets as there are elements without a modification,
+     * {@link #ALIAS}
+     * <li>Large collections modified too often for a recalculation after every
+     * modification to pay off, {@link #FENWICK}
+     * <li>Otherwise {@link #GUIDE_TABLE}
+     * </ul>
+     */
+    AUTOMATIC,
+
+    /**
+     * Scan elements in order until the random number is reached.
+     * Get is O(n), and there is no table to recalculate.
+     */
+    LINEAR,
+
+    /**
+     * Binary search over the cumulative probability of each element.
+     * Get is O(log n), and after a modification the cumulative probabilities are
+     * recalculated from the modified element onwards, O(n) at worst.
+     */
+    BINARY_SEARCH,
+
+    /**
+     * Search the cumulative probabilities from a guide table bucket, so only a few
+     * elements are stepped over. Get is expected O(1), and after a modification
+     * the cumulative probabilities and buckets are recalculated from the modified
+     * element onwards, O(n) at worst.
+     */
+    GUIDE_TABLE,
+
+    /**
+     * Alias table. Get is O(1), but the whole table is laid out again, O(n), by
+     * the first get after any modification.
+     */
+    ALIAS,
+
+    /**
+     * Binary indexed (Fenwick) tree of cumulative probability. Get is O(log n),
+     * and adding, removing or changing the probability of an element is O(log n).
+     */
+    FENWICK
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2020 Lewys Davies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.lewdev.probabilitylib;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Selects a random index from an array of probabilities owned by a collection,
+ * with the engine chosen by a {@link SamplingStrategy}.
+ * <p>
+ * {@link SamplingStrategy#AUTOMATIC} scans collections of up to
+ * {@value #LINEAR_SIZE} indexes. Larger ones are selected from a
+ * {@link GuideTable}, in expected O(1), which after a modification only
+ * recalculates from the first modified index. Once as many selections as there
+ * are indexes have been made without a modification, the "blocks" are laid out
+ * in an {@link AliasTable}, which is O(1) without the short search.
+ * <p>
+ * Recalculating the guide table costs up to O(n) after every batch of
+ * modifications, so a large collection that is modified more often than it is
+ * read switches to a {@link FenwickSampler}, which keeps up with each
+ * modification in O(log n) instead.
+ */
+final class Selector {
+    // No larger than this, scanning is cheaper than keeping a table up to date
+    static final int LINEAR_SIZE = 8;
+    // Smaller than this, recalculating the guide table is always cheap enough
+    static final int FENWICK_SIZE = 1 << 12;
+    // Selections and batches of modifications counted, halved once this many batches are counted
+    private static final int HISTORY = 64;
+
+    private final SamplingStrategy strategy;
+    private final GuideTable guideTable = new GuideTable();
+    private final FenwickSampler fenwickSampler = new FenwickSampler();
+    // Laid out again in place after modifications, only allocating when the collection grows
+    private final AliasTable aliasTable = new AliasTable();
+
+    private boolean aliasValid = false;
+    private int selectsSinceModified = 0;
+
+    // Recent selections, and batches of modifications made between selections
+    private int recentSelects = 0;
+    private int recentModifications = 0;
+    private boolean selectedSinceModified = false;
+
+    /**
+     * Create a new Selector that chooses its engine automatically
+     */
+    Selector() {
+        this(SamplingStrategy.AUTOMATIC);
+    }
+
+    /**
+     * Create a new Selector
+     *
+     * @param strategy engine to select with. Not null.
+     */
+    Selector(SamplingStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    /**
+     * Select a random index, based on probability
+     *
+     * @param probabilities    probability share of each index
+     * @param size             number of indexes in use. Must be greater than 0.
+     * @param totalProbability sum of the first size probabilities
+     * @param random           Random number generator that returns a random number between 0 and n-1
+     * @return Index of the selected element
+     */
+    int select(int[] probabilities, int size, int totalProbability, IntUnaryOperator random) {
+        switch (this.strategy) {
+            case LINEAR:
+                return linear(probabilities, totalProbability, random);
+            case BINARY_SEARCH:
+                return this.guideTable.binarySearch(probabilities, size, totalProbability, random);
+            case GUIDE_TABLE:
+                return this.guideTable.select(probabilities, size, totalProbability, random);
+            case ALIAS:
+                if (!this.aliasValid) {
+                    this.buildAliasTable(probabilities, size, totalProbability);
+                }
+                return this.aliasTable.sample(random);
+            case FENWICK:
+                return this.fenwickSampler.select(probabilities, size, totalProbability, random);
+            default:
+                return this.selectAutomatically(probabilities, size, totalProbability, random);
+        }
+    }
+
+    private int selectAutomatically(int[] probabilities, int size, int totalProbability, IntUnaryOperator random) {
+        if (size <= LINEAR_SIZE) {
+            return linear(probabilities, totalProbability, random);
+        }
+
+        this.selectedSinceModified = true;
+        if (++this.recentSelects == Integer.MAX_VALUE) {
+            this.forget();
+        }
+
+        if (this.aliasValid) {
+            return this.aliasTable.sample(random);
+        }
+
+        // Enough selections to pay for laying out an alias table
+        if (++this.selectsSinceModified >= size) {
+            this.buildAliasTable(probabilities, size, totalProbability);
+            return this.aliasTable.sample(random);
+        }
+
+        // Recalculating about half of the "blocks" per batch of modifications, against
+        // O(log n) for each modification and selection
+        int depth = 32 - Integer.numberOfLeadingZeros(size);
+        if (size >= FENWICK_SIZE && (long) this.recentSelects * depth < (long) this.recentModifications * size / 2) {
+            return this.fenwickSampler.select(probabilities, size, totalProbability, random);
+        }
+        return this.guideTable.select(probabilities, size, totalProbability, random);
+    }
+
+    /**
+     * Prepare for a batch of selections, laying out the alias table straight away
+     * if the batch is large enough to pay for it
+     *
+     * @param count            number of selections about to be made
+     * @param probabilities    probability share of each index
+     * @param size             number of indexes in use. Must be greater than 0.
+     * @param totalProbability sum of the first size probabilities
+     */
+    void prepare(int count, int[] probabilities, int size, int totalProbability) {
+        if (this.strategy == SamplingStrategy.AUTOMATIC && size > LINEAR_SIZE
+                && !this.aliasValid && count >= size - this.selectsSinceModified) {
+            this.buildAliasTable(probabilities, size, totalProbability);
+        }
+    }
+
+    private void buildAliasTable(int[] probabilities, int size, int totalProbability) {
+        this.aliasTable.build(probabilities, size, totalProbability);
+        this.aliasValid = true;
+    }
+
+    /**
+     * Update after the probability of a single index changed in place
+     *
+     * @param index index whose probability changed
+     * @param delta amount the probability changed by
+     */
+    void changed(int index, int delta) {
+        this.guideTable.modified(index);
+        this.fenwickSampler.changed(index, delta);
+        this.invalidate();
+    }
+
+    /**
+     * Invalidate every table after the collection has been modified
+     *
+     * @param fromIndex first index whose probability, or position, changed
+     */
+    void modified(int fromIndex) {
+        this.guideTable.modified(fromIndex);
+        this.fenwickSampler.modified(fromIndex);
+        this.invalidate();
+    }
+
+    private void invalidate() {
+        this.aliasValid = false;
+        this.selectsSinceModified = 0;
+
+        // Only the first modification after a selection starts a new batch
+        if (this.selectedSinceModified) {
+            this.selectedSinceModified = false;
+            if (++this.recentModifications == HISTORY) {
+                this.forget();
+            }
+        }
+    }
+
+    /**
+     * Halve the recent selections and modifications, so older ones count for less
+     */
+    private void forget() {
+        this.recentSelects >>= 1;
+        this.recentModifications >>= 1;
+    }
+
+    /**
+     * Select by scanning the probabilities in order
+     */
+    private static int linear(int[] probabilities, int totalProbability, IntUnaryOperator random) {
+        int offset = random.applyAsInt(totalProbability);
+
+        int index = 0;
+        while (offset >= probabilities[index]) {
+            offset -= probabilities[index];
+            index++;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2020 Lewys Davies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.lewdev.probabilitylib;
+
+import com.lewdev.probabilitylib.ProbabilityCollection.ProbabilitySetElement;
+
+import java.util.*;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Thread safe ProbabilityCollection for collections that are modified too
+ * often to copy on every write.
+ * <p>
+ * Elements are held in a {@link DynamicProbabilityCollection}, so add and remove
+ * are O(log n) under a write lock. get first selects under an optimistic read
+ * stamp, which never blocks and never blocks writers, and only takes the read
+ * lock if a write happened while it was selecting.
+ * <p>
+ * For collections that are rarely modified, {@link ConcurrentProbabilityCollection}
+ * is faster to read.
+ *
+ * @param <E> Type of elements
+ */
+public final class StampedProbabilityCollection<E> {
+    private final StampedLock lock = new StampedLock();
+    private final IntUnaryOperator randomOperator;
+    private final DynamicProbabilityCollection<E> collection;
+
+    /**
+     * Create a new StampedProbabilityCollection with a custom random number generator
+     *
+     * @param randomNumberGenerator Thread safe random number generator that returns a random number between 0 and n-1,
+     *                              such as {@link PerThreadRandom}
+     */
+    public StampedProbabilityCollection(IntUnaryOperator randomNumberGenerator) {
+        this.randomOperator = randomNumberGenerator;
+        this.collection = new DynamicProbabilityCollection<>(randomNumberGenerator);
+    }
+
+    /**
+     * Create a new StampedProbabilityCollection where every thread draws from {@link java.util.concurrent.ThreadLocalRandom}
+     */
+    public StampedProbabilityCollection() {
+        this(new PerThreadRandom());
+    }
+
+    /**
+     * Create a new StampedProbabilityCollection where every thread draws from its own
+     * generator, split from one seeded generator
+     *
+     * @param seed Seed for random number generator
+     * @see PerThreadRandom#PerThreadRandom(long)
+     */
+    public StampedProbabilityCollection(long seed) {
+        this(new PerThreadRandom(seed));
+    }
+
+    /**
+     * Get the total of objects in this collection
+     *
+     * @return Number of objects inside the collection
+     */
+    public int size() {
+        long stamp = this.lock.tryOptimisticRead();
+        int size = this.collection.size();
+        if (this.lock.validate(stamp)) {
+            return size;
+        }
+
+        stamp = this.lock.readLock();
+        try {
+            return this.collection.size();
+        } finally {
+            this.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Check if collection is empty
+     *
+     * @return True if collection contains no elements, else False
+     */
+    public boolean isEmpty() {
+        return this.size() == 0;
+    }
+
+    /**
+     * Check if collection contains an object
+     *
+     * @return True if collection contains the object, else False
+     * @throws IllegalArgumentException if object is null
+     */
+    public boolean contains(E object) {
+        long stamp = this.lock.readLock();
+        try {
+            return this.collection.contains(object);
+        } finally {
+            this.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Get the iterator over a copy of this collection
+     *
+     * @return Iterator over this collection
+     */
+    public Iterator<ProbabilitySetElement<E>> iterator() {
+        List<ProbabilitySetElement<E>> copy = new ArrayList<>();
+
+        long stamp = this.lock.readLock();
+        try {
+            this.collection.iterator().forEachRemaining(copy::add);
+        } finally {
+            this.lock.unlockRead(stamp);
+        }
+
+        return Collections.unmodifiableList(copy).iterator();
+    }
+
+    /**
+     * Add an object to this collection, in O(log n)
+     *
+     * @param object      object. Not null.
+     * @param probability share. Must be greater than 0.
+     * @throws IllegalArgumentException if object is null
+     * @throws IllegalArgumentException if probability <= 0
+     * @throws IllegalArgumentException if the total probability would exceed Integer.MAX_VALUE
+     */
+    public void add(E object, int probability) {
+        long stamp = this.lock.writeLock();
+        try {
+            this.collection.add(object, probability);
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Remove an object from this collection, in O(log n) per instance of the object
+     *
+     * @param object object
+     * @return True if object was removed, else False.
+     * @throws IllegalArgumentException if object is null
+     */
+    public boolean remove(E object) {
+        long stamp = this.lock.writeLock();
+        try {
+            return this.collection.remove(object);
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Set the probability share of an object in place, in O(log n)
+     *
+     * @param object      object. Not null.
+     * @param probability share. 0 removes the object from this collection.
+     * @throws IllegalArgumentException if object is null
+     * @throws IllegalArgumentException if probability < 0
+     * @throws IllegalArgumentException if the total probability would exceed Integer.MAX_VALUE
+     * @see DynamicProbabilityCollection#setProbability(Object, int)
+     */
+    public void setProbability(E object, int probability) {
+        long stamp = this.lock.writeLock();
+        try {
+            this.collection.setProbability(object, probability);
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Change the probability share of an object by an amount in place, in O(log n)
+     *
+     * @param object object. Not null.
+     * @param amount to change the probability share by. The share cannot become negative.
+     * @throws IllegalArgumentException if object is null
+     * @throws IllegalArgumentException if the probability share would become negative
+     * @throws IllegalArgumentException if the total probability would exceed Integer.MAX_VALUE
+     * @see DynamicProbabilityCollection#addProbability(Object, int)
+     */
+    public void addProbability(E object, int amount) {
+        long stamp = this.lock.writeLock();
+        try {
+            this.collection.addProbability(object, amount);
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Remove all objects from this collection
+     */
+    public void clear() {
+        long stamp = this.lock.writeLock();
+        try {
+            this.collection.clear();
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Get a random object from this collection, based on probability, in O(log n)
+     *
+     * @return <E> Random object
+     * @throws IllegalStateException if this collection is empty
+     */
+    public E get() {
+        long stamp = this.lock.tryOptimisticRead();
+        if (stamp != 0) {
+            int totalProbability = this.collection.getTotalProbability();
+
+            // A state read mid-write may be inconsistent, it is discarded unless validated
+            if (totalProbability > 0) {
+                Object object = this.collection.objectAt(this.randomOperator.applyAsInt(totalProbability));
+                if (object != null && this.lock.validate(stamp)) {
+                    @SuppressWarnings("unchecked")
+                    E result = (E) object;
+                    return result;
+                }
+            }
+        }
+
+        stamp = this.lock.readLock();
+        try {
+            return this.collection.get();
+        } finally {
+            this.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Get the total probability of all elements in this collection
+     *
+     * @return Sum of all element's probability
+     */
+    public int getTotalProbability() {
+        long stamp = this.lock.tryOptimisticRead();
+        int totalProbability = this.collection.getTotalProbability();
+        if (this.lock.validate(stamp)) {
+            return totalProbability;
+        }
+
+        stamp = this.lock.readLock();
+        try {
+            return this.collection.getTotalProbability();
+        } finally {
+            this.lock.unlockRead(stamp);
+        }
+    }
+}
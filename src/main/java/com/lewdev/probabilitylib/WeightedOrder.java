@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2020 Lewys Davies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.lewdev.probabilitylib;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Orders elements as if they were repeatedly selected and removed, without
+ * repeating any selection (Efraimidis-Spirakis keys).
+ * <p>
+ * Every element "arrives" after a random, exponentially distributed time with
+ * its probability share as the rate. Sorting elements by arrival gives the same
+ * order as getting an element, removing it, and getting again.
+ */
+final class WeightedOrder {
+
+    private WeightedOrder() {
+    }
+
+    /**
+     * Get a random arrival time for an element. Elements with a larger
+     * probability share tend to arrive sooner.
+     *
+     * @param probability share. Must be greater than 0.
+     * @param random      Random number generator that returns a random number between 0 and n-1
+     * @return Arrival time, greater than or equal to 0
+     */
+    static double arrival(int probability, IntUnaryOperator random) {
+        // 1 - nextDouble is never 0
+        return -Math.log(1 - Binomial.nextDouble(random)) / probability;
+    }
+
+    /**
+     * Put every object in a random order, based on probability, in O(n log n)
+     * without allocating
+     *
+     * @param probabilities probability share of each object
+     * @param objects       objects, at least size long
+     * @param size          number of objects
+     * @param random        Random number generator that returns a random number between 0 and n-1
+     * @param arrivals      working space, at least size long
+     * @param out           array to fill with the objects, in the order they would be selected
+     */
+    static void order(int[] probabilities, Object[] objects, int size, IntUnaryOperator random,
+                      double[] arrivals, Object[] out) {
+        for (int i = 0; i < size; i++) {
+            arrivals[i] = arrival(probabilities[i], random);
+            out[i] = objects[i];
+        }
+
+        // Heap sort by arrival, latest at the root, moving objects alongside
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(arrivals, out, i, size);
+        }
+        for (int end = size - 1; end > 0; end--) {
+            swap(arrivals, out, 0, end);
+            siftDown(arrivals, out, 0, end);
+        }
+    }
+
+    private static void siftDown(double[] arrivals, Object[] out, int root, int end) {
+        int parent = root;
+        while (true) {
+            int latest = parent;
+            int left = 2 * parent + 1;
+            int right = left + 1;
+
+            if (left < end && arrivals[left] > arrivals[latest]) {
+                latest = left;
+            }
+            if (right < end && arrivals[right] > arrivals[latest]) {
+                latest = right;
+            }
+            if (latest == parent) {
+                return;
+            }
+
+            swap(arrivals, out, parent, latest);
+            parent = latest;
+        }
+    }
+
+    private static void swap(double[] arrivals, Object[] out, int a, int b) {
+        double arrival = arrivals[a];
+        arrivals[a] = arrivals[b];
+        arrivals[b] = arrival;
+
+        Object object = out[a];
+        out[a] = out[b];
+        out[b] = object;
+    }
+}
@@ -0,0 +1,113 @@
+package com.lewdev.probabilitylib;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read throughput of the thread safe collections, as the number of reading
+ * threads grows. "synchronized" is a ProbabilityCollection behind a single
+ * lock, for comparison.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 2, jvmArgs = {"-Xms2G", "-Xmx2G"})
+public class BenchmarkConcurrentProbability {
+	public int elements = 1_000;
+
+	private ProbabilityCollection<Integer> collection;
+	private ConcurrentProbabilityCollection<Integer> concurrent;
+	private StampedProbabilityCollection<Integer> stamped;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		this.collection = new ProbabilityCollection<>();
+		this.concurrent = new ConcurrentProbabilityCollection<>();
+		this.stamped = new StampedProbabilityCollection<>();
+
+		for(int i = 0; i < elements; i++) {
+			collection.add(i, 1);
+			concurrent.add(i, 1);
+			stamped.add(i, 1);
+		}
+	}
+
+	private Integer synchronizedGet() {
+		synchronized(this.collection) {
+			return this.collection.get();
+		}
+	}
+
+	@Benchmark
+	@Threads(1)
+	public Integer synchronizedGet_01() {
+		return this.synchronizedGet();
+	}
+
+	@Benchmark
+	@Threads(1)
+	public Integer concurrentGet_01() {
+		return this.concurrent.get();
+	}
+
+	@Benchmark
+	@Threads(1)
+	public Integer stampedGet_01() {
+		return this.stamped.get();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Integer synchronizedGet_04() {
+		return this.synchronizedGet();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Integer concurrentGet_04() {
+		return this.concurrent.get();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Integer stampedGet_04() {
+		return this.stamped.get();
+	}
+
+	@Benchmark
+	@Threads(16)
+	public Integer synchronizedGet_16() {
+		return this.synchronizedGet();
+	}
+
+	@Benchmark
+	@Threads(16)
+	public Integer concurrentGet_16() {
+		return this.concurrent.get();
+	}
+
+	@Benchmark
+	@Threads(16)
+	public Integer stampedGet_16() {
+		return this.stamped.get();
+	}
+
+	@Benchmark
+	@Threads(64)
+	public Integer synchronizedGet_64() {
+		return this.synchronizedGet();
+	}
+
+	@Benchmark
+	@Threads(64)
+	public Integer concurrentGet_64() {
+		return this.concurrent.get();
+	}
+
+	@Benchmark
+	@Threads(64)
+	public Integer stampedGet_64() {
+		return this.stamped.get();
+	}
+}
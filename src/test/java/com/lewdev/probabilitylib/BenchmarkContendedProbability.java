@@ -0,0 +1,153 @@
+package com.lewdev.probabilitylib;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Readers and writers sharing one collection, for every thread safe mode.
+ * "synchronized" is a ProbabilityCollection behind a single lock, for comparison.
+ * <p>
+ * Each mode is run as two groups: read mostly, 15 get threads and 1 writer, and
+ * balanced, 8 of each. Writers add an object and remove it again, so the
+ * collection stays the same size. Throughput and the latency distribution
+ * (including p0.99) are reported for the readers and writers of each group.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Group)
+@Fork(value = 2, jvmArgs = {"-Xms2G", "-Xmx2G"})
+public class BenchmarkContendedProbability {
+	public int elements = 1_000;
+
+	// Only ever added and removed by writers, never part of the initial collection
+	private final Integer written = elements;
+
+	private ProbabilityCollection<Integer> collection;
+	private ConcurrentProbabilityCollection<Integer> concurrent;
+	private StampedProbabilityCollection<Integer> stamped;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		this.collection = new ProbabilityCollection<>();
+		this.concurrent = new ConcurrentProbabilityCollection<>();
+		this.stamped = new StampedProbabilityCollection<>();
+
+		for(int i = 0; i < elements; i++) {
+			collection.add(i, 1);
+			concurrent.add(i, 1);
+			stamped.add(i, 1);
+		}
+	}
+
+	private Integer synchronizedRead() {
+		synchronized(this.collection) {
+			return this.collection.get();
+		}
+	}
+
+	private boolean synchronizedWrite() {
+		synchronized(this.collection) {
+			this.collection.add(this.written, 1);
+			return this.collection.remove(this.written);
+		}
+	}
+
+	private boolean concurrentWrite() {
+		this.concurrent.add(this.written, 1);
+		return this.concurrent.remove(this.written);
+	}
+
+	private boolean stampedWrite() {
+		this.stamped.add(this.written, 1);
+		return this.stamped.remove(this.written);
+	}
+
+	// Read mostly, 15 readers and 1 writer
+
+	@Benchmark
+	@Group("synchronized_15_1")
+	@GroupThreads(15)
+	public Integer synchronizedRead_15_1() {
+		return this.synchronizedRead();
+	}
+
+	@Benchmark
+	@Group("synchronized_15_1")
+	@GroupThreads(1)
+	public boolean synchronizedWrite_15_1() {
+		return this.synchronizedWrite();
+	}
+
+	@Benchmark
+	@Group("concurrent_15_1")
+	@GroupThreads(15)
+	public Integer concurrentRead_15_1() {
+		return this.concurrent.get();
+	}
+
+	@Benchmark
+	@Group("concurrent_15_1")
+	@GroupThreads(1)
+	public boolean concurrentWrite_15_1() {
+		return this.concurrentWrite();
+	}
+
+	@Benchmark
+	@Group("stamped_15_1")
+	@GroupThreads(15)
+	public Integer stampedRead_15_1() {
+		return this.stamped.get();
+	}
+
+	@Benchmark
+	@Group("stamped_15_1")
+	@GroupThreads(1)
+	public boolean stampedWrite_15_1() {
+		return this.stampedWrite();
+	}
+
+	// Balanced, 8 readers and 8 writers
+
+	@Benchmark
+	@Group("synchronized_8_8")
+	@GroupThreads(8)
+	public Integer synchronizedRead_8_8() {
+		return this.synchronizedRead();
+	}
+
+	@Benchmark
+	@Group("synchronized_8_8")
+	@GroupThreads(8)
+	public boolean synchronizedWrite_8_8() {
+		return this.synchronizedWrite();
+	}
+
+	@Benchmark
+	@Group("concurrent_8_8")
+	@GroupThreads(8)
+	public Integer concurrentRead_8_8() {
+		return this.concurrent.get();
+	}
+
+	@Benchmark
+	@Group("concurrent_8_8")
+	@GroupThreads(8)
+	public boolean concurrentWrite_8_8() {
+		return this.concurrentWrite();
+	}
+
+	@Benchmark
+	@Group("stamped_8_8")
+	@GroupThreads(8)
+	public Integer stampedRead_8_8() {
+		return this.stamped.get();
+	}
+
+	@Benchmark
+	@Group("stamped_8_8")
+	@GroupThreads(8)
+	public boolean stampedWrite_8_8() {
+		return this.stampedWrite();
+	}
+}
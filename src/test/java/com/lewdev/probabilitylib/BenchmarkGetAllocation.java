@@ -0,0 +1,86 @@
+package com.lewdev.probabilitylib;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Get of every collection, to be run with the GC profiler. gc.alloc.rate.norm
+ * should be 0 B/op for every benchmark; GetAllocationTest fails the build if not.
+ * <p>
+ * Run with {@link #main(String[])}, or pass "-prof gc" to JMH.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 2, jvmArgs = {"-Xms2G", "-Xmx2G"})
+public class BenchmarkGetAllocation {
+	public int elements = 1_000;
+
+	private ProbabilityCollection<Integer> collection;
+	private ImmutableProbabilityCollection<Integer> immutable;
+	private IntProbabilityCollection intCollection;
+	private DynamicProbabilityCollection<Integer> dynamic;
+	private ConcurrentProbabilityCollection<Integer> concurrent;
+	private StampedProbabilityCollection<Integer> stamped;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		this.collection = new ProbabilityCollection<>();
+		this.intCollection = new IntProbabilityCollection();
+		this.dynamic = new DynamicProbabilityCollection<>();
+		this.concurrent = new ConcurrentProbabilityCollection<>();
+		this.stamped = new StampedProbabilityCollection<>();
+
+		for(int i = 0; i < elements; i++) {
+			collection.add(i, 1);
+			intCollection.add(i, 1);
+			dynamic.add(i, 1);
+			concurrent.add(i, 1);
+			stamped.add(i, 1);
+		}
+
+		this.immutable = this.collection.toImmutable();
+	}
+
+	@Benchmark
+	public Integer collectionGet() {
+		return this.collection.get();
+	}
+
+	@Benchmark
+	public Integer immutableGet() {
+		return this.immutable.get();
+	}
+
+	@Benchmark
+	public int intCollectionGet() {
+		return this.intCollection.getInt();
+	}
+
+	@Benchmark
+	public Integer dynamicGet() {
+		return this.dynamic.get();
+	}
+
+	@Benchmark
+	public Integer concurrentGet() {
+		return this.concurrent.get();
+	}
+
+	@Benchmark
+	public Integer stampedGet() {
+		return this.stamped.get();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(BenchmarkGetAllocation.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
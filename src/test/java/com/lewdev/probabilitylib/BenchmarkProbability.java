@@ -15,7 +15,13 @@ public class BenchmarkProbability {
 	public int toAdd = elements + 1;
 	public int toAddProb = 10;
 
+	// Bulk gets report the cost of each object, to compare with a single get
+	private static final int BULK_GETS = 1_000;
+	private final Integer[] bulkOut = new Integer[BULK_GETS];
+	private final int[] intBulkOut = new int[BULK_GETS];
+
 	private ProbabilityCollection<Integer> collection;
+	private IntProbabilityCollection intCollection;
 	
 	@Setup(Level.Iteration)
 	public void setup() {
@@ -24,6 +30,12 @@ public class BenchmarkProbability {
 		for(int i = 0; i < elements; i++) {
 			collection.add(i, 1);
 		}
+
+		this.intCollection = new IntProbabilityCollection();
+
+		for(int i = 0; i < elements; i++) {
+			intCollection.add(i, 1);
+		}
 	}
 	
 	@TearDown(Level.Iteration)
@@ -31,15 +43,44 @@ public class BenchmarkProbability {
 		this.collection.clear();
 
 		this.collection = null;
+
+		this.intCollection.clear();
+
+		this.intCollection = null;
 	}
 	
+	// Removed again straight away, so the collection stays the same size over an iteration
 	@Benchmark
-	public void collectionAddSingle() {
+	public boolean collectionAddRemove() {
 		this.collection.add(toAdd, toAddProb);
+		return this.collection.remove(toAdd);
 	}
 	
 	@Benchmark
 	public void collectionGet(Blackhole bh) {
 		bh.consume(this.collection.get());
 	}
+
+	@Benchmark
+	@OperationsPerInvocation(BULK_GETS)
+	public void collectionGetBulk(Blackhole bh) {
+		bh.consume(this.collection.get(this.bulkOut));
+	}
+
+	@Benchmark
+	public boolean intCollectionAddRemove() {
+		this.intCollection.add(toAdd, toAddProb);
+		return this.intCollection.remove(toAdd);
+	}
+
+	@Benchmark
+	public void intCollectionGet(Blackhole bh) {
+		bh.consume(this.intCollection.getInt());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BULK_GETS)
+	public void intCollectionGetBulk(Blackhole bh) {
+		bh.consume(this.intCollection.getInts(this.intBulkOut));
+	}
 }
@@ -0,0 +1,275 @@
+package com.lewdev.probabilitylib;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Iterator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.lewdev.probabilitylib.ProbabilityCollection.ProbabilitySetElement;
+
+/**
+ * Cost of every operation, by collection, number of elements and how their
+ * probability shares are distributed. mixed is additionally run for each
+ * {@link MixState.Mix} of reads and writes.
+ * <p>
+ * Every benchmark leaves the collection the same size, so results do not drift
+ * over an iteration. iterate reports the cost of a whole pass, not of each element.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xms4G", "-Xmx4G"})
+public class BenchmarkProbabilitySuite {
+	// Length of the precomputed operation schedules, a power of 2
+	private static final int SCHEDULE = 1 << 12;
+
+	public enum Engine {
+		ARRAY, FENWICK
+	}
+
+	public enum Distribution {
+		UNIFORM {
+			@Override
+			int probability(int index, int elements) {
+				return 1;
+			}
+		},
+		ZIPF {
+			@Override
+			int probability(int index, int elements) {
+				return Math.max(1, 1_000_000 / (index + 1));
+			}
+		},
+		ONE_DOMINANT {
+			@Override
+			int probability(int index, int elements) {
+				return index == 0 ? elements * 100 : 1;
+			}
+		};
+
+		abstract int probability(int index, int elements);
+	}
+
+	@Param({"10", "1000", "100000", "10000000"})
+	public int elements;
+
+	@Param({"UNIFORM", "ZIPF", "ONE_DOMINANT"})
+	public Distribution distribution;
+
+	@Param({"ARRAY", "FENWICK"})
+	public Engine engine;
+
+	// Only used by the ARRAY engine, run with -p strategy=... to compare strategies
+	@Param({"AUTOMATIC"})
+	public SamplingStrategy strategy;
+
+	private Integer[] objects;
+	private int[] probabilities;
+	private BenchmarkedCollection collection;
+
+	// Random elements to look up, remove and add back
+	private final int[] targets = new int[SCHEDULE];
+	private int cursor = 0;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		this.objects = new Integer[elements];
+		this.probabilities = new int[elements];
+		this.collection = engine == Engine.ARRAY ? new ArrayCollection(strategy) : new FenwickCollection();
+
+		for(int i = 0; i < elements; i++) {
+			this.objects[i] = i;
+			this.probabilities[i] = distribution.probability(i, elements);
+			this.collection.add(this.objects[i], this.probabilities[i]);
+		}
+
+		SplittableRandom random = new SplittableRandom(42);
+		for(int i = 0; i < SCHEDULE; i++) {
+			this.targets[i] = random.nextInt(elements);
+		}
+	}
+
+	private int nextTarget() {
+		return this.targets[this.cursor++ & (SCHEDULE - 1)];
+	}
+
+	@Benchmark
+	public Integer get() {
+		return this.collection.get();
+	}
+
+	@Benchmark
+	public boolean contains() {
+		return this.collection.contains(this.objects[this.nextTarget()]);
+	}
+
+	@Benchmark
+	public void removeAndAdd() {
+		int target = this.nextTarget();
+		this.collection.remove(this.objects[target]);
+		this.collection.add(this.objects[target], this.probabilities[target]);
+	}
+
+	@Benchmark
+	public void iterate(Blackhole bh) {
+		this.collection.iterate(bh);
+	}
+
+	@Benchmark
+	public void mixed(MixState mix, Blackhole bh) {
+		int i = this.cursor++ & (SCHEDULE - 1);
+		int target = this.targets[i];
+
+		switch(mix.operations[i]) {
+			case MixState.GET:
+				bh.consume(this.collection.get());
+				break;
+			case MixState.UPDATE:
+				// Alternates between the original share and one more, so the total stays bounded
+				this.collection.setProbability(this.objects[target], this.probabilities[target] + (i & 1));
+				break;
+			default:
+				this.collection.remove(this.objects[target]);
+				this.collection.add(this.objects[target], this.probabilities[target]);
+				break;
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class MixState {
+		static final byte GET = 0;
+		static final byte UPDATE = 1;
+		static final byte REPLACE = 2;
+
+		public enum Mix {
+			/** 95% get, 5% setProbability */
+			READ_HEAVY(95, 5),
+			/** 20% get, 80% setProbability */
+			WRITE_HEAVY(20, 80),
+			/** 50% get, 50% remove then add back */
+			CHURN(50, 0);
+
+			private final int getPercent;
+			private final int updatePercent;
+
+			Mix(int getPercent, int updatePercent) {
+				this.getPercent = getPercent;
+				this.updatePercent = updatePercent;
+			}
+		}
+
+		@Param({"READ_HEAVY", "WRITE_HEAVY", "CHURN"})
+		public Mix mix;
+
+		final byte[] operations = new byte[SCHEDULE];
+
+		@Setup(Level.Trial)
+		public void setup() {
+			SplittableRandom random = new SplittableRandom(7);
+			for(int i = 0; i < SCHEDULE; i++) {
+				int roll = random.nextInt(100);
+				if(roll < mix.getPercent) operations[i] = GET;
+				else if(roll < mix.getPercent + mix.updatePercent) operations[i] = UPDATE;
+				else operations[i] = REPLACE;
+			}
+		}
+	}
+
+	/**
+	 * The operations being measured, so every engine runs the same benchmark code.
+	 * Each fork only loads one implementation, so calls stay monomorphic.
+	 */
+	private interface BenchmarkedCollection {
+		void add(Integer object, int probability);
+
+		boolean remove(Integer object);
+
+		boolean contains(Integer object);
+
+		void setProbability(Integer object, int probability);
+
+		Integer get();
+
+		void iterate(Blackhole bh);
+	}
+
+	private static final class ArrayCollection implements BenchmarkedCollection {
+		private final ProbabilityCollection<Integer> collection;
+
+		ArrayCollection(SamplingStrategy strategy) {
+			this.collection = new ProbabilityCollection<>(strategy);
+		}
+
+		@Override
+		public void add(Integer object, int probability) {
+			this.collection.add(object, probability);
+		}
+
+		@Override
+		public boolean remove(Integer object) {
+			return this.collection.remove(object);
+		}
+
+		@Override
+		public boolean contains(Integer object) {
+			return this.collection.contains(object);
+		}
+
+		@Override
+		public void setProbability(Integer object, int probability) {
+			this.collection.setProbability(object, probability);
+		}
+
+		@Override
+		public Integer get() {
+			return this.collection.get();
+		}
+
+		@Override
+		public void iterate(Blackhole bh) {
+			for(Iterator<ProbabilitySetElement<Integer>> it = this.collection.iterator(); it.hasNext(); ) {
+				bh.consume(it.next());
+			}
+		}
+	}
+
+	private static final class FenwickCollection implements BenchmarkedCollection {
+		private final DynamicProbabilityCollection<Integer> collection = new DynamicProbabilityCollection<>();
+
+		@Override
+		public void add(Integer object, int probability) {
+			this.collection.add(object, probability);
+		}
+
+		@Override
+		public boolean remove(Integer object) {
+			return this.collection.remove(object);
+		}
+
+		@Override
+		public boolean contains(Integer object) {
+			return this.collection.contains(object);
+		}
+
+		@Override
+		public void setProbability(Integer object, int probability) {
+			this.collection.setProbability(object, probability);
+		}
+
+		@Override
+		public Integer get() {
+			return this.collection.get();
+		}
+
+		@Override
+		public void iterate(Blackhole bh) {
+			for(Iterator<ProbabilitySetElement<Integer>> it = this.collection.iterator(); it.hasNext(); ) {
+				bh.consume(it.next());
+			}
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package com.lewdev.probabilitylib;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import com.lewdev.probabilitylib.ProbabilityCollection.ProbabilitySetElement;
+
+public class ConcurrentProbabilityCollectionTest {
+
+	@Test
+	public void test_insert_remove() {
+		ConcurrentProbabilityCollection<String> collection = new ConcurrentProbabilityCollection<>();
+		assertEquals(0, collection.size());
+		assertTrue(collection.isEmpty());
+		assertEquals(0, collection.getTotalProbability());
+
+		for(int i = 0; i < 10; i++) {
+			collection.add("Hello", 10);
+			collection.add("World", 10);
+		}
+
+		assertTrue(collection.contains("Hello"));
+		assertEquals(20, collection.size());
+		assertEquals(200, collection.getTotalProbability());
+
+		// Iterators keep the snapshot they started with
+		Iterator<ProbabilitySetElement<String>> it = collection.iterator();
+
+		assertTrue(collection.remove("Hello"));
+		assertFalse(collection.remove("Hello"));
+		assertFalse(collection.contains("Hello"));
+		assertEquals(10, collection.size());
+		assertEquals(100, collection.getTotalProbability());
+
+		int iterated = 0;
+		while(it.hasNext()) {
+			it.next();
+			iterated++;
+		}
+		assertEquals(20, iterated);
+
+		collection.clear();
+		assertEquals(0, collection.size());
+		assertTrue(collection.isEmpty());
+		assertEquals(0, collection.getTotalProbability());
+	}
+
+	@Test
+	public void test_probability() {
+		ConcurrentProbabilityCollection<String> collection = new ConcurrentProbabilityCollection<>();
+
+		collection.add("A", 50);
+		collection.add("B", 25);
+		collection.add("C", 10);
+
+		List<String> elements = Arrays.asList("A", "B", "C");
+		double[] probabilities = {50, 25, 10};
+
+		GoodnessOfFit.assertFits(probabilities, 1_000_000, () -> elements.indexOf(collection.get()));
+	}
+
+	@Test
+	public void test_concurrent_get() throws Exception {
+		ConcurrentProbabilityCollection<String> collection = new ConcurrentProbabilityCollection<>();
+		collection.add("A", 1);
+
+		int readers = 4;
+		ExecutorService executor = Executors.newFixedThreadPool(readers);
+		AtomicBoolean writing = new AtomicBoolean(true);
+
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for(int i = 0; i < readers; i++) {
+				futures.add(executor.submit(() -> {
+					while(writing.get()) {
+						String random = collection.get();
+						assertTrue(random.equals("A") || random.equals("B"));
+					}
+				}));
+			}
+
+			// Modify while readers are selecting, "A" is always present
+			for(int i = 0; i < 10_000; i++) {
+				collection.add("B", 1 + i % 5);
+				collection.remove("B");
+			}
+			writing.set(false);
+
+			for(Future<?> future : futures) {
+				future.get(10, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(1, collection.size());
+		assertEquals(1, collection.getTotalProbability());
+	}
+
+	@Test
+	public void test_Errors() {
+		ConcurrentProbabilityCollection<String> collection = new ConcurrentProbabilityCollection<>();
+
+		assertThrows(IllegalStateException.class, () -> {
+			collection.get();
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.add(null, 1);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.add("A", 0);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.remove(null);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.contains(null);
+		});
+
+		assertTrue(collection.isEmpty());
+		assertEquals(0, collection.getTotalProbability());
+	}
+}
@@ -0,0 +1,122 @@
+package com.lewdev.probabilitylib;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.lewdev.probabilitylib.DoubleProbabilityCollection.ProbabilitySetElement;
+
+public class DoubleProbabilityCollectionTest {
+
+	@Test
+	public void test_insert_remove() {
+		DoubleProbabilityCollection<String> collection = new DoubleProbabilityCollection<>();
+		assertEquals(0, collection.size());
+		assertTrue(collection.isEmpty());
+		assertEquals(0, collection.getTotalProbability());
+
+		collection.add("A", 0.5);
+		collection.add("B", 0.25);
+		collection.add("A", 0.125);
+		assertTrue(collection.contains("A"));
+		assertEquals(3, collection.size());
+		assertEquals(0.875, collection.getTotalProbability());
+
+		Iterator<ProbabilitySetElement<String>> it = collection.iterator();
+		it.next();
+		ProbabilitySetElement<String> b = it.next();
+		assertEquals("B", b.getObject());
+		assertEquals(0.25, b.getProbability());
+		it.remove();
+		assertEquals("A", it.next().getObject());
+		assertFalse(it.hasNext());
+		assertEquals(0.625, collection.getTotalProbability());
+
+		assertTrue(collection.remove("A"));
+		assertFalse(collection.remove("A"));
+		assertTrue(collection.isEmpty());
+		assertEquals(0, collection.getTotalProbability());
+
+		collection.add("C", 1);
+		collection.clear();
+		assertEquals(0, collection.size());
+		assertTrue(collection.isEmpty());
+		assertEquals(0, collection.getTotalProbability());
+	}
+
+	@Test
+	public void test_probability() {
+		DoubleProbabilityCollection<String> collection = new DoubleProbabilityCollection<>();
+
+		// Weights that do not scale cleanly to ints
+		collection.add("A", 0.0137);
+		collection.add("D", 0.5);
+		collection.add("B", 0.0061);
+		collection.add("C", 0.00273);
+		collection.remove("D");
+
+		// The removed object is never selected, indexOf would return -1
+		List<String> elements = Arrays.asList("A", "B", "C");
+		double[] probabilities = {0.0137, 0.0061, 0.00273};
+
+		GoodnessOfFit.assertFits(probabilities, 1_000_000, () -> elements.indexOf(collection.get()));
+	}
+
+	@Test
+	public void test_small_weights() {
+		DoubleProbabilityCollection<String> collection = new DoubleProbabilityCollection<>();
+
+		// A weight far below the precision of an int share is still selected
+		collection.add("A", 1);
+		collection.add("B", 1e-3);
+
+		List<String> elements = Arrays.asList("A", "B");
+
+		GoodnessOfFit.assertFits(new double[] {1, 1e-3}, 1_000_000, () -> elements.indexOf(collection.get()));
+	}
+
+	@Test
+	public void test_Errors() {
+		DoubleProbabilityCollection<String> collection = new DoubleProbabilityCollection<>();
+
+		assertThrows(IllegalStateException.class, () -> {
+			collection.get();
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.add(null, 1);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.add("A", 0);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.add("A", Double.NaN);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.add("A", Double.POSITIVE_INFINITY);
+		});
+
+		collection.add("A", Double.MAX_VALUE);
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.add("B", Double.MAX_VALUE);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.remove(null);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.contains(null);
+		});
+
+		assertEquals(1, collection.size());
+		assertEquals(Double.MAX_VALUE, collection.getTotalProbability());
+	}
+}
@@ -0,0 +1,286 @@
+package com.lewdev.probabilitylib;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.lewdev.probabilitylib.ProbabilityCollection.ProbabilitySetElement;
+
+public class DynamicProbabilityCollectionTest {
+
+	@Test
+	public void test_insert() {
+		DynamicProbabilityCollection<String> collection = new DynamicProbabilityCollection<>();
+		assertEquals(0, collection.size());
+		assertTrue(collection.isEmpty());
+		assertEquals(0, collection.getTotalProbability());
+
+		collection.add("A", 2);
+		assertTrue(collection.contains("A"));
+		assertEquals(1, collection.size());
+		assertEquals(2, collection.getTotalProbability());
+
+		collection.add("B", 5);
+		assertTrue(collection.contains("B"));
+		assertEquals(2, collection.size());
+		assertEquals(7, collection.getTotalProbability());
+
+		// Past the initial capacity, so the tree must grow
+		for(int i = 0; i < 100; i++) {
+			collection.add("C", 1);
+
+			assertTrue(collection.contains("C"));
+			assertEquals(3 + i, collection.size());
+			assertEquals(8 + i, collection.getTotalProbability());
+		}
+	}
+
+	@Test
+	public void test_remove_duplicates() {
+		DynamicProbabilityCollection<String> collection = new DynamicProbabilityCollection<>();
+
+		for(int i = 0; i < 10; i++) {
+			collection.add("Hello", 10);
+			collection.add("World", 10);
+			collection.add("!", 10);
+		}
+
+		assertEquals(30, collection.size());
+		assertEquals(300, collection.getTotalProbability());
+
+		assertTrue(collection.remove("World"));
+		assertFalse(collection.remove("World"));
+		assertFalse(collection.contains("World"));
+		assertEquals(20, collection.size());
+		assertEquals(200, collection.getTotalProbability());
+
+		// Freed slots are reused
+		collection.add("World", 5);
+		assertTrue(collection.contains("World"));
+		assertEquals(21, collection.size());
+		assertEquals(205, collection.getTotalProbability());
+
+		int iterated = 0, iteratedProbability = 0;
+		for(Iterator<ProbabilitySetElement<String>> it = collection.iterator(); it.hasNext(); ) {
+			ProbabilitySetElement<String> entry = it.next();
+			iterated++;
+			iteratedProbability += entry.getProbability();
+		}
+		assertEquals(21, iterated);
+		assertEquals(205, iteratedProbability);
+
+		collection.clear();
+		assertEquals(0, collection.size());
+		assertTrue(collection.isEmpty());
+		assertEquals(0, collection.getTotalProbability());
+		assertFalse(collection.iterator().hasNext());
+	}
+
+	@Test
+	public void test_probability() {
+		DynamicProbabilityCollection<String> collection = new DynamicProbabilityCollection<>();
+
+		collection.add("A", 50);
+		collection.add("D", 30);
+		collection.add("B", 25);
+		collection.add("C", 10);
+		collection.remove("D");
+
+		// The removed object is never selected, indexOf would return -1
+		List<String> elements = Arrays.asList("A", "B", "C");
+		double[] probabilities = {50, 25, 10};
+
+		GoodnessOfFit.assertFits(probabilities, 1_000_000, () -> elements.indexOf(collection.get()));
+	}
+
+	@Test
+	public void test_get_and_remove() {
+		DynamicProbabilityCollection<String> collection = new DynamicProbabilityCollection<>();
+
+		for(int i = 0; i < 10; i++) {
+			collection.add("Hello", 10);
+			collection.add("World", 10);
+		}
+
+		// Only the drawn instance is removed, duplicates are kept
+		String drawn = collection.getAndRemove();
+		assertTrue(collection.contains(drawn));
+		assertEquals(19, collection.size());
+		assertEquals(190, collection.getTotalProbability());
+
+		int hello = 0, world = 0;
+		while(!collection.isEmpty()) {
+			if(collection.getAndRemove().equals("Hello")) hello++;
+			else world++;
+		}
+
+		assertEquals(19, hello + world);
+		assertEquals(drawn.equals("Hello") ? 9 : 10, hello);
+		assertFalse(collection.contains("Hello"));
+		assertFalse(collection.contains("World"));
+		assertEquals(0, collection.getTotalProbability());
+
+		assertThrows(IllegalStateException.class, () -> {
+			collection.getAndRemove();
+		});
+
+		// Freed slots are reused, and the removed objects can be added again
+		collection.add("Hello", 3);
+		assertTrue(collection.contains("Hello"));
+		assertEquals(1, collection.size());
+	}
+
+	@Test
+	public void test_get_and_decrement() {
+		DynamicProbabilityCollection<String> collection = new DynamicProbabilityCollection<>();
+
+		collection.add("A", 5);
+		collection.add("A", 2);
+
+		int draws = 0;
+		while(!collection.isEmpty()) {
+			assertEquals("A", collection.getAndDecrement(2));
+			draws++;
+		}
+
+		// 5 takes 3 draws and 2 takes 1, whichever order they are drawn in
+		assertEquals(4, draws);
+		assertFalse(collection.contains("A"));
+		assertEquals(0, collection.getTotalProbability());
+
+		collection.add("B", 10);
+		assertEquals("B", collection.getAndDecrement(3));
+		assertEquals(7, collection.getTotalProbability());
+		assertEquals(7, collection.iterator().next().getProbability());
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.getAndDecrement(0);
+		});
+	}
+
+	@Test
+	public void test_get_and_remove_probability() {
+		List<String> elements = Arrays.asList("A", "B", "C");
+		double[] probabilities = {50, 25, 10};
+
+		// The first object drawn from a new collection each time
+		GoodnessOfFit.assertFits(probabilities, 1_000_000, () -> {
+			DynamicProbabilityCollection<String> collection = new DynamicProbabilityCollection<>();
+			collection.add("A", 50);
+			collection.add("B", 25);
+			collection.add("C", 10);
+
+			int first = elements.indexOf(collection.getAndRemove());
+			assertEquals(2, collection.size());
+			return first;
+		});
+	}
+
+	@Test
+	public void test_set_probability() {
+		DynamicProbabilityCollection<String> collection = new DynamicProbabilityCollection<>();
+
+		collection.add("A", 10);
+		collection.add("B", 20);
+		collection.add("A", 5);
+
+		// Duplicates are merged into one instance
+		collection.setProbability("A", 40);
+		assertEquals(2, collection.size());
+		assertEquals(60, collection.getTotalProbability());
+
+		collection.addProbability("B", -15);
+		assertEquals(45, collection.getTotalProbability());
+
+		collection.addProbability("C", 5);
+		assertTrue(collection.contains("C"));
+		assertEquals(3, collection.size());
+		assertEquals(50, collection.getTotalProbability());
+
+		collection.addProbability("C", -5);
+		assertFalse(collection.contains("C"));
+		assertEquals(2, collection.size());
+		assertEquals(45, collection.getTotalProbability());
+
+		int iteratedProbability = 0;
+		for(Iterator<ProbabilitySetElement<String>> it = collection.iterator(); it.hasNext(); ) {
+			iteratedProbability += it.next().getProbability();
+		}
+		assertEquals(45, iteratedProbability);
+
+		// Selection follows the new shares
+		collection.setProbability("B", 0);
+		for(int i = 0; i < 1_000; i++) {
+			assertEquals("A", collection.get());
+		}
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.addProbability("A", -41);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.setProbability(null, 1);
+		});
+
+		assertEquals(40, collection.getTotalProbability());
+	}
+
+	@Test
+	public void test_set_probability_unchanged_on_error() {
+		DynamicProbabilityCollection<String> collection = new DynamicProbabilityCollection<>();
+
+		collection.add("A", 10);
+		collection.add("B", 20);
+		collection.add("A", 5);
+
+		// A is 15 combined, so neither change is valid, and the duplicates must not be merged
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.addProbability("A", -16);
+		});
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.setProbability("A", Integer.MAX_VALUE - 10);
+		});
+
+		assertEquals(3, collection.size());
+		assertEquals(35, collection.getTotalProbability());
+
+		int as = 0;
+		for(Iterator<ProbabilitySetElement<String>> it = collection.iterator(); it.hasNext(); ) {
+			if(it.next().getObject().equals("A")) as++;
+		}
+		assertEquals(2, as);
+	}
+
+	@Test
+	public void test_Errors() {
+		DynamicProbabilityCollection<String> collection = new DynamicProbabilityCollection<>();
+
+		assertThrows(IllegalStateException.class, () -> {
+			collection.get();
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.add(null, 1);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.add("A", 0);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.remove(null);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.contains(null);
+		});
+
+		assertEquals(0, collection.size());
+		assertTrue(collection.isEmpty());
+		assertEquals(0, collection.getTotalProbability());
+	}
+}
@@ -0,0 +1,129 @@
+package com.lewdev.probabilitylib;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.EnumMap;
+import java.util.Iterator;
+
+import org.junit.jupiter.api.Test;
+
+import com.lewdev.probabilitylib.ProbabilityCollection.ProbabilitySetElement;
+
+public class EnumProbabilityCollectionTest {
+
+	private enum Rarity {
+		COMMON, UNCOMMON, RARE, LEGENDARY
+	}
+
+	@Test
+	public void test_insert_remove() {
+		EnumProbabilityCollection<Rarity> collection = new EnumProbabilityCollection<>(Rarity.class);
+		assertEquals(0, collection.size());
+		assertTrue(collection.isEmpty());
+		assertEquals(0, collection.getTotalProbability());
+
+		collection.add(Rarity.COMMON, 50);
+		assertTrue(collection.contains(Rarity.COMMON));
+		assertFalse(collection.contains(Rarity.RARE));
+		assertEquals(1, collection.size());
+		assertEquals(50, collection.getTotalProbability());
+
+		// Adding again increases the share
+		collection.add(Rarity.COMMON, 10);
+		assertEquals(1, collection.size());
+		assertEquals(60, collection.getProbability(Rarity.COMMON));
+		assertEquals(60, collection.getTotalProbability());
+
+		collection.setProbability(Rarity.RARE, 5);
+		assertEquals(2, collection.size());
+		assertEquals(65, collection.getTotalProbability());
+
+		collection.setProbability(Rarity.COMMON, 0);
+		assertFalse(collection.contains(Rarity.COMMON));
+		assertEquals(1, collection.size());
+		assertEquals(5, collection.getTotalProbability());
+
+		assertTrue(collection.remove(Rarity.RARE));
+		assertFalse(collection.remove(Rarity.RARE));
+		assertTrue(collection.isEmpty());
+		assertEquals(0, collection.getTotalProbability());
+
+		collection.add(Rarity.LEGENDARY, 1);
+		collection.add(Rarity.UNCOMMON, 2);
+		Iterator<ProbabilitySetElement<Rarity>> it = collection.iterator();
+		assertEquals(Rarity.UNCOMMON, it.next().getObject());
+		assertEquals(Rarity.LEGENDARY, it.next().getObject());
+		assertFalse(it.hasNext());
+
+		collection.clear();
+		assertEquals(0, collection.size());
+		assertTrue(collection.isEmpty());
+		assertEquals(0, collection.getTotalProbability());
+	}
+
+	@Test
+	public void test_probability() {
+		EnumProbabilityCollection<Rarity> collection = new EnumProbabilityCollection<>(Rarity.class);
+
+		collection.add(Rarity.COMMON, 50);
+		collection.add(Rarity.RARE, 25);
+		collection.add(Rarity.LEGENDARY, 10);
+
+		// By ordinal, UNCOMMON has no share so must never be selected
+		double[] probabilities = {50, 0, 25, 10};
+
+		GoodnessOfFit.assertFits(probabilities, 1_000_000, () -> collection.get().ordinal());
+	}
+
+	@Test
+	public void test_sample_counts() {
+		EnumProbabilityCollection<Rarity> collection = new EnumProbabilityCollection<>(Rarity.class);
+
+		collection.add(Rarity.COMMON, 50);
+		collection.add(Rarity.RARE, 25);
+		collection.add(Rarity.LEGENDARY, 10);
+
+		long totalGets = 100_000_000;
+
+		EnumMap<Rarity, Long> counts = collection.sampleCounts(totalGets);
+		assertFalse(counts.containsKey(Rarity.UNCOMMON));
+		assertEquals(totalGets, counts.get(Rarity.COMMON) + counts.get(Rarity.RARE) + counts.get(Rarity.LEGENDARY));
+
+		long[] observed = new long[Rarity.values().length];
+		counts.forEach((rarity, count) -> observed[rarity.ordinal()] = count);
+
+		GoodnessOfFit.assertFits(new double[] {50, 0, 25, 10}, observed);
+	}
+
+	@Test
+	public void test_Errors() {
+		EnumProbabilityCollection<Rarity> collection = new EnumProbabilityCollection<>(Rarity.class);
+
+		assertThrows(IllegalStateException.class, () -> {
+			collection.get();
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.add(null, 1);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.add(Rarity.COMMON, 0);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.setProbability(Rarity.COMMON, -1);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.remove(null);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.contains(null);
+		});
+
+		assertTrue(collection.isEmpty());
+		assertEquals(0, collection.getTotalProbability());
+	}
+}
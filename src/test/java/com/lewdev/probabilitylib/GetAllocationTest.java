@@ -0,0 +1,174 @@
+package com.lewdev.probabilitylib;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.*;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Every get must be allocation free, measured with the allocated bytes counter
+ * of the current thread.
+ */
+public class GetAllocationTest {
+	private static final int WARMUP_GETS = 100_000;
+	private static final int MEASURED_GETS = 1_000_000;
+	// Noise from reading the allocated bytes counter, not from any get
+	private static final long ALLOWED_BYTES = 1_024;
+
+	private enum Rarity {
+		COMMON, UNCOMMON, RARE, LEGENDARY
+	}
+
+	// Results are written here so the gets cannot be optimised away
+	private Object sink;
+	private long primitiveSink;
+
+	@Test
+	public void test_collection_get() {
+		ProbabilityCollection<Integer> collection = new ProbabilityCollection<>();
+		for(int i = 0; i < 1_000; i++) {
+			collection.add(i, 1 + i % 10);
+		}
+
+		assertNoAllocation(() -> sink = collection.get());
+	}
+
+	@Test
+	public void test_collection_get_after_modification() {
+		ProbabilityCollection<Integer> collection = new ProbabilityCollection<>();
+		Integer modified = 500;
+		for(int i = 0; i < 1_000; i++) {
+			collection.add(i, 1 + i % 10);
+		}
+
+		// Modifying in place keeps every get on the guide table
+		assertNoAllocation(() -> {
+			collection.setProbability(modified, 5);
+			sink = collection.get();
+		});
+	}
+
+	@Test
+	public void test_collection_get_after_alias_rebuild() {
+		ProbabilityCollection<Integer> collection = new ProbabilityCollection<>();
+		Integer modified = 500;
+		for(int i = 0; i < 1_000; i++) {
+			collection.add(i, 1 + i % 10);
+		}
+
+		// Enough gets between modifications for the alias table to be laid out again
+		// every time, 200 times over the measured gets
+		int[] gets = {0};
+		assertNoAllocation(() -> {
+			int get = gets[0]++;
+			if(get % 5_000 == 0) {
+				collection.setProbability(modified, 5 + (get / 5_000) % 2);
+			}
+			sink = collection.get();
+		});
+	}
+
+	@Test
+	public void test_primitive_get() {
+		IntProbabilityCollection ints = new IntProbabilityCollection();
+		LongProbabilityCollection longs = new LongProbabilityCollection();
+		for(int i = 0; i < 1_000; i++) {
+			ints.add(i, 1 + i % 10);
+			longs.add(i, 1 + i % 10);
+		}
+
+		assertNoAllocation(() -> primitiveSink = ints.getInt());
+		assertNoAllocation(() -> primitiveSink = longs.getLong());
+	}
+
+	@Test
+	public void test_dynamic_get() {
+		DynamicProbabilityCollection<Integer> dynamic = new DynamicProbabilityCollection<>();
+		StampedProbabilityCollection<Integer> stamped = new StampedProbabilityCollection<>();
+		for(int i = 0; i < 1_000; i++) {
+			dynamic.add(i, 1 + i % 10);
+			stamped.add(i, 1 + i % 10);
+		}
+
+		assertNoAllocation(() -> sink = dynamic.get());
+		assertNoAllocation(() -> sink = stamped.get());
+	}
+
+	@Test
+	public void test_thread_safe_get() {
+		ConcurrentProbabilityCollection<Integer> concurrent = new ConcurrentProbabilityCollection<>();
+		ProbabilityCollection<Integer> collection = new ProbabilityCollection<>();
+		for(int i = 0; i < 1_000; i++) {
+			concurrent.add(i, 1 + i % 10);
+			collection.add(i, 1 + i % 10);
+		}
+		ImmutableProbabilityCollection<Integer> immutable = collection.toImmutable();
+
+		assertNoAllocation(() -> sink = concurrent.get());
+		assertNoAllocation(() -> sink = immutable.get());
+	}
+
+	@Test
+	public void test_other_get() {
+		EnumProbabilityCollection<Rarity> rarities = new EnumProbabilityCollection<>(Rarity.class);
+		rarities.add(Rarity.COMMON, 50);
+		rarities.add(Rarity.RARE, 10);
+
+		LongWeightProbabilityCollection<Integer> wide = new LongWeightProbabilityCollection<>();
+		DoubleProbabilityCollection<Integer> doubles = new DoubleProbabilityCollection<>();
+		for(int i = 0; i < 1_000; i++) {
+			wide.add(i, 10_000_000L * (1 + i % 10));
+			doubles.add(i, 0.5 + i % 10);
+		}
+
+		assertNoAllocation(() -> sink = rarities.get());
+		assertNoAllocation(() -> sink = wide.get());
+		assertNoAllocation(() -> sink = doubles.get());
+	}
+
+	@Test
+	public void test_weighted_shuffle() {
+		ProbabilityCollection<Integer> collection = new ProbabilityCollection<>();
+		for(int i = 0; i < 10; i++) {
+			collection.add(i, 1 + i);
+		}
+
+		// Filling the caller's array reuses the collection's working space
+		Integer[] out = new Integer[10];
+		assertNoAllocation(() -> sink = collection.weightedShuffle(out));
+	}
+
+	/**
+	 * Run a get enough times to be compiled, then check it does not allocate
+	 *
+	 * @param get get to measure
+	 */
+	private static void assertNoAllocation(Runnable get) {
+		ThreadMXBean bean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assumeTrue(bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled());
+
+		long thread = Thread.currentThread().getId();
+
+		for(int i = 0; i < WARMUP_GETS; i++) {
+			get.run();
+		}
+
+		// Reading the counter may allocate, so that is measured and taken away
+		long before = bean.getThreadAllocatedBytes(thread);
+		long overhead = bean.getThreadAllocatedBytes(thread) - before;
+
+		before = bean.getThreadAllocatedBytes(thread);
+		for(int i = 0; i < MEASURED_GETS; i++) {
+			get.run();
+		}
+		long allocated = bean.getThreadAllocatedBytes(thread) - before - overhead;
+
+		// A fixed bound that does not grow with the number of gets. Any get that
+		// allocates regularly, even once in a thousand gets, is far over it.
+		assertTrue(allocated < ALLOWED_BYTES, allocated + " bytes allocated over " + MEASURED_GETS + " gets");
+	}
+}
@@ -0,0 +1,209 @@
+package com.lewdev.probabilitylib;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.function.IntSupplier;
+
+/**
+ * Statistical tests that a sampling engine selects each element in proportion
+ * to its probability share, from one large sample.
+ * <p>
+ * Elements are numbered from 0, and the engine under test returns the number of
+ * the element it selected. The sample is checked with Pearson's chi-square test,
+ * which is sensitive to any single element being selected too often or too
+ * rarely, and a Kolmogorov-Smirnov test on the cumulative distribution, which is
+ * sensitive to selection drifting towards the start or end of the elements.
+ * <p>
+ * Either test fails a fair engine with probability {@link #SIGNIFICANCE}, so a
+ * failure is evidence of bias rather than bad luck.
+ */
+final class GoodnessOfFit {
+	static final double SIGNIFICANCE = 1e-6;
+
+	private GoodnessOfFit() {
+	}
+
+	/**
+	 * Draw a sample and fail if it does not fit the probability shares
+	 *
+	 * @param probabilities probability share of each element
+	 * @param samples       number of draws
+	 * @param draw          draws the number of a random element
+	 */
+	static void assertFits(double[] probabilities, int samples, IntSupplier draw) {
+		assertFits(probabilities, sample(probabilities.length, samples, draw));
+	}
+
+	/**
+	 * Fail if the number of times each element was selected does not fit the
+	 * probability shares
+	 *
+	 * @param probabilities probability share of each element
+	 * @param observed      number of times each element was selected
+	 */
+	static void assertFits(double[] probabilities, long[] observed) {
+		double chiSquare = chiSquarePValue(probabilities, observed);
+		double kolmogorovSmirnov = kolmogorovSmirnovPValue(probabilities, observed);
+
+		assertTrue(chiSquare >= SIGNIFICANCE, "Chi-square p-value " + chiSquare + " below " + SIGNIFICANCE);
+		assertTrue(kolmogorovSmirnov >= SIGNIFICANCE, "Kolmogorov-Smirnov p-value " + kolmogorovSmirnov + " below " + SIGNIFICANCE);
+	}
+
+	/**
+	 * Count how many times each element is selected
+	 *
+	 * @param elements number of elements
+	 * @param samples  number of draws
+	 * @param draw     draws the number of a random element
+	 * @return Number of times each element was selected
+	 */
+	static long[] sample(int elements, int samples, IntSupplier draw) {
+		long[] observed = new long[elements];
+		for(int i = 0; i < samples; i++) {
+			observed[draw.getAsInt()]++;
+		}
+		return observed;
+	}
+
+	/**
+	 * Pearson's chi-square test
+	 *
+	 * @param probabilities probability share of each element
+	 * @param observed      number of times each element was selected
+	 * @return Chance of a fair engine producing a sample at least this far from
+	 * the probability shares. 0 if an element with no share was selected.
+	 */
+	static double chiSquarePValue(double[] probabilities, long[] observed) {
+		double total = 0;
+		long samples = 0;
+		for(int i = 0; i < probabilities.length; i++) {
+			total += probabilities[i];
+			samples += observed[i];
+		}
+
+		double statistic = 0;
+		int categories = 0;
+		for(int i = 0; i < probabilities.length; i++) {
+			double expected = samples * probabilities[i] / total;
+			if(expected == 0) {
+				if(observed[i] > 0) return 0;
+				continue;
+			}
+
+			double difference = observed[i] - expected;
+			statistic += difference * difference / expected;
+			categories++;
+		}
+
+		if(categories < 2) return 1;
+		return upperRegularizedGamma((categories - 1) / 2.0, statistic / 2);
+	}
+
+	/**
+	 * Kolmogorov-Smirnov test on the cumulative distribution of element numbers.
+	 * As the distribution is discrete the test is conservative, so it fails a fair
+	 * engine no more often than a continuous one.
+	 *
+	 * @param probabilities probability share of each element
+	 * @param observed      number of times each element was selected
+	 * @return Chance of a fair engine producing a sample at least this far from
+	 * the probability shares
+	 */
+	static double kolmogorovSmirnovPValue(double[] probabilities, long[] observed) {
+		double total = 0;
+		long samples = 0;
+		for(int i = 0; i < probabilities.length; i++) {
+			total += probabilities[i];
+			samples += observed[i];
+		}
+
+		double expected = 0;
+		long cumulative = 0;
+		double distance = 0;
+		for(int i = 0; i < probabilities.length; i++) {
+			expected += probabilities[i];
+			cumulative += observed[i];
+			distance = Math.max(distance, Math.abs(cumulative / (double) samples - expected / total));
+		}
+
+		double root = Math.sqrt(samples);
+		return kolmogorov((root + 0.12 + 0.11 / root) * distance);
+	}
+
+	/**
+	 * Tail of the Kolmogorov distribution, the chance its statistic exceeds lambda
+	 */
+	private static double kolmogorov(double lambda) {
+		if(lambda < 0.2) return 1;
+
+		double sum = 0;
+		double sign = 1;
+		for(int k = 1; k <= 100; k++) {
+			double term = sign * Math.exp(-2 * k * k * lambda * lambda);
+			sum += term;
+			if(Math.abs(term) < 1e-16) break;
+			sign = -sign;
+		}
+		return Math.max(0, Math.min(1, 2 * sum));
+	}
+
+	/**
+	 * Upper regularized incomplete gamma function Q(a, x), the chi-square tail
+	 * with 2a degrees of freedom at 2x
+	 */
+	private static double upperRegularizedGamma(double a, double x) {
+		if(x <= 0) return 1;
+
+		double logPrefix = a * Math.log(x) - x - logGamma(a);
+
+		if(x < a + 1) {
+			// Series for the lower function P(a, x)
+			double term = 1 / a;
+			double sum = term;
+			for(int n = 1; n < 10_000 && Math.abs(term) > Math.abs(sum) * 1e-15; n++) {
+				term *= x / (a + n);
+				sum += term;
+			}
+			return Math.max(0, 1 - sum * Math.exp(logPrefix));
+		}
+
+		// Continued fraction for Q(a, x), by Lentz's method
+		double tiny = 1e-300;
+		double b = x + 1 - a;
+		double c = 1 / tiny;
+		double d = 1 / b;
+		double fraction = d;
+		for(int n = 1; n < 10_000; n++) {
+			double an = -n * (n - a);
+			b += 2;
+			d = an * d + b;
+			if(Math.abs(d) < tiny) d = tiny;
+			c = b + an / c;
+			if(Math.abs(c) < tiny) c = tiny;
+			d = 1 / d;
+			double delta = d * c;
+			fraction *= delta;
+			if(Math.abs(delta - 1) < 1e-15) break;
+		}
+		return Math.exp(logPrefix) * fraction;
+	}
+
+	/**
+	 * Natural log of the gamma function, by the Lanczos approximation
+	 */
+	private static double logGamma(double x) {
+		double[] coefficients = {
+				76.18009172947146, -86.50532032941677, 24.01409824083091,
+				-1.231739572450155, 0.1208650973866179e-2, -0.5395239384953e-5
+		};
+
+		double y = x;
+		double tmp = x + 5.5;
+		tmp -= (x + 0.5) * Math.log(tmp);
+		double series = 1.000000000190015;
+		for(double coefficient : coefficients) {
+			series += coefficient / ++y;
+		}
+		return -tmp + Math.log(2.5066282746310005 * series / x);
+	}
+}
@@ -0,0 +1,246 @@
+package com.lewdev.probabilitylib;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Every sampling engine, run through {@link GoodnessOfFit} with the same
+ * uneven probability shares
+ */
+public class GoodnessOfFitTest {
+	private static final int[] PROBABILITIES = {50, 25, 10, 5, 1, 100, 3, 7, 2, 1};
+	private static final int SAMPLES = 5_000_000;
+
+	private static double[] shares() {
+		double[] shares = new double[PROBABILITIES.length];
+		for(int i = 0; i < shares.length; i++) {
+			shares[i] = PROBABILITIES[i];
+		}
+		return shares;
+	}
+
+	@Test
+	public void test_accepts_fair_sample() {
+		SplittableRandom random = new SplittableRandom(1);
+		double[] shares = {1, 2, 3, 4};
+
+		// Exact counts fit perfectly
+		assertEquals(1, GoodnessOfFit.chiSquarePValue(shares, new long[] {100, 200, 300, 400}), 1e-9);
+		assertEquals(1, GoodnessOfFit.kolmogorovSmirnovPValue(shares, new long[] {100, 200, 300, 400}), 1e-9);
+
+		GoodnessOfFit.assertFits(shares, SAMPLES, () -> {
+			int offset = random.nextInt(10);
+			return offset < 1 ? 0 : offset < 3 ? 1 : offset < 6 ? 2 : 3;
+		});
+	}
+
+	@Test
+	public void test_detects_bias() {
+		SplittableRandom random = new SplittableRandom(2);
+		double[] shares = {1, 1, 1, 1};
+
+		// Element 0 selected 1% more often than it should be, 25.25% instead of 25%
+		long[] observed = GoodnessOfFit.sample(shares.length, SAMPLES, () -> {
+			if(random.nextInt(300) == 0) return 0;
+			return random.nextInt(4);
+		});
+		assertTrue(GoodnessOfFit.chiSquarePValue(shares, observed) < GoodnessOfFit.SIGNIFICANCE);
+		assertTrue(GoodnessOfFit.kolmogorovSmirnovPValue(shares, observed) < GoodnessOfFit.SIGNIFICANCE);
+		assertThrows(AssertionError.class, () -> GoodnessOfFit.assertFits(shares, observed));
+
+		// Selecting an element with no share can never fit
+		assertEquals(0, GoodnessOfFit.chiSquarePValue(new double[] {1, 0}, new long[] {10, 1}));
+
+		// Off by one: the last element is never selected
+		double[] shifted = {1, 1, 1, 1, 1, 1, 1, 1, 1, 1};
+		long[] shiftedObserved = GoodnessOfFit.sample(shifted.length, SAMPLES, () -> random.nextInt(9));
+		assertTrue(GoodnessOfFit.chiSquarePValue(shifted, shiftedObserved) < GoodnessOfFit.SIGNIFICANCE);
+		assertTrue(GoodnessOfFit.kolmogorovSmirnovPValue(shifted, shiftedObserved) < GoodnessOfFit.SIGNIFICANCE);
+	}
+
+	@Test
+	public void test_probability_collection() {
+		ProbabilityCollection<Integer> collection = new ProbabilityCollection<>();
+		for(int i = 0; i < PROBABILITIES.length; i++) {
+			collection.add(i, PROBABILITIES[i]);
+		}
+
+		// Alias table, laid out after enough gets
+		GoodnessOfFit.assertFits(shares(), SAMPLES, collection::get);
+
+		// Guide table, modifying more often than the alias table would be laid out
+		Integer extra = PROBABILITIES.length;
+		int[] gets = {0};
+		GoodnessOfFit.assertFits(shares(), SAMPLES, () -> {
+			if(gets[0]++ % 4 == 0) {
+				collection.add(extra, 1);
+				collection.remove(extra);
+			}
+			return collection.get();
+		});
+
+		GoodnessOfFit.assertFits(shares(), SAMPLES, collection.toImmutable()::get);
+	}
+
+	@Test
+	public void test_guide_table() {
+		SplittableRandom random = new SplittableRandom(3);
+		GuideTable guideTable = new GuideTable();
+		int[] probabilities = new int[1_000];
+		int size = 0;
+		int total = 0;
+
+		// Appended, one very large share among small ones
+		for(; size < 100; size++) {
+			probabilities[size] = size == 10 ? 1_000_000 : 1 + size % 7;
+			total += probabilities[size];
+		}
+		assertGuideTableFits(guideTable, probabilities, size, total, random);
+
+		for(; size < 1_000; size++) {
+			probabilities[size] = 1 + size % 7;
+			total += probabilities[size];
+		}
+		assertGuideTableFits(guideTable, probabilities, size, total, random);
+
+		// Modified in place, then the large share removed so the buckets are resized
+		total += 500 - probabilities[500];
+		probabilities[500] = 500;
+		guideTable.modified(500);
+		assertGuideTableFits(guideTable, probabilities, size, total, random);
+
+		total -= probabilities[10];
+		probabilities[10] = probabilities[--size];
+		guideTable.modified(10);
+		assertGuideTableFits(guideTable, probabilities, size, total, random);
+
+		// Shrunk from the end
+		while(size > 3) {
+			total -= probabilities[--size];
+		}
+		guideTable.modified(size);
+		assertGuideTableFits(guideTable, probabilities, size, total, random);
+	}
+
+	private static void assertGuideTableFits(GuideTable guideTable, int[] probabilities, int size, int total, SplittableRandom random) {
+		double[] shares = new double[size];
+		for(int i = 0; i < size; i++) {
+			shares[i] = probabilities[i];
+		}
+
+		GoodnessOfFit.assertFits(shares, SAMPLES, () -> guideTable.select(probabilities, size, total, random::nextInt));
+	}
+
+	@Test
+	public void test_sampling_strategies() {
+		for(SamplingStrategy strategy : SamplingStrategy.values()) {
+			ProbabilityCollection<Integer> collection = new ProbabilityCollection<>(strategy);
+			for(int i = 0; i < PROBABILITIES.length; i++) {
+				collection.add(i, PROBABILITIES[i]);
+			}
+
+			GoodnessOfFit.assertFits(shares(), SAMPLES, collection::get);
+
+			// Modified between gets, each change undone so the probabilities stay the same
+			int[] gets = {0};
+			GoodnessOfFit.assertFits(shares(), SAMPLES, () -> {
+				int element = gets[0]++ % PROBABILITIES.length;
+				if(gets[0] % 3 == 0) {
+					collection.setProbability(element, PROBABILITIES[element] + 5);
+					collection.setProbability(element, PROBABILITIES[element]);
+				} else if(gets[0] % 3 == 1) {
+					collection.remove(element);
+					collection.add(element, PROBABILITIES[element]);
+				}
+				return collection.get();
+			});
+		}
+	}
+
+	@Test
+	public void test_automatic_strategy_write_heavy() {
+		// Large enough, and modified often enough, to be selected from a Fenwick tree
+		int elements = Selector.FENWICK_SIZE * 2;
+		double[] shares = new double[elements];
+		ProbabilityCollection<Integer> collection = new ProbabilityCollection<>();
+		for(int i = 0; i < elements; i++) {
+			shares[i] = 1 + i % 10;
+			collection.add(i, 1 + i % 10);
+		}
+
+		int[] gets = {0};
+		GoodnessOfFit.assertFits(shares, SAMPLES, () -> {
+			int element = (int) (gets[0]++ * 7919L % elements);
+			collection.addProbability(element, 3);
+			collection.addProbability(element, -3);
+			return collection.get();
+		});
+	}
+
+	@Test
+	public void test_dynamic_probability_collection() {
+		DynamicProbabilityCollection<Integer> collection = new DynamicProbabilityCollection<>();
+		for(int i = 0; i < PROBABILITIES.length; i++) {
+			collection.add(i, PROBABILITIES[i]);
+		}
+
+		GoodnessOfFit.assertFits(shares(), SAMPLES, collection::get);
+	}
+
+	@Test
+	public void test_thread_safe_collections() {
+		ConcurrentProbabilityCollection<Integer> concurrent = new ConcurrentProbabilityCollection<>();
+		StampedProbabilityCollection<Integer> stamped = new StampedProbabilityCollection<>();
+		for(int i = 0; i < PROBABILITIES.length; i++) {
+			concurrent.add(i, PROBABILITIES[i]);
+			stamped.add(i, PROBABILITIES[i]);
+		}
+
+		GoodnessOfFit.assertFits(shares(), SAMPLES, concurrent::get);
+		GoodnessOfFit.assertFits(shares(), SAMPLES, stamped::get);
+	}
+
+	@Test
+	public void test_primitive_collections() {
+		IntProbabilityCollection ints = new IntProbabilityCollection();
+		LongProbabilityCollection longs = new LongProbabilityCollection();
+		for(int i = 0; i < PROBABILITIES.length; i++) {
+			ints.add(i, PROBABILITIES[i]);
+			longs.add(i, PROBABILITIES[i]);
+		}
+
+		GoodnessOfFit.assertFits(shares(), SAMPLES, ints::getInt);
+		GoodnessOfFit.assertFits(shares(), SAMPLES, () -> (int) longs.getLong());
+	}
+
+	@Test
+	public void test_weight_collections() {
+		// Total past Integer.MAX_VALUE, so the int fast path is not used
+		LongWeightProbabilityCollection<Integer> longWeights = new LongWeightProbabilityCollection<>();
+		DoubleProbabilityCollection<Integer> doubles = new DoubleProbabilityCollection<>();
+		for(int i = 0; i < PROBABILITIES.length; i++) {
+			longWeights.add(i, PROBABILITIES[i] * 100_000_000L);
+			doubles.add(i, PROBABILITIES[i] * 1e-3);
+		}
+
+		GoodnessOfFit.assertFits(shares(), SAMPLES, longWeights::get);
+		GoodnessOfFit.assertFits(shares(), SAMPLES, doubles::get);
+	}
+
+	private enum Element {
+		A, B, C, D, E, F, G, H, I, J
+	}
+
+	@Test
+	public void test_enum_collection() {
+		EnumProbabilityCollection<Element> collection = new EnumProbabilityCollection<>(Element.class);
+		for(Element element : Element.values()) {
+			collection.add(element, PROBABILITIES[element.ordinal()]);
+		}
+
+		GoodnessOfFit.assertFits(shares(), SAMPLES, () -> collection.get().ordinal());
+	}
+}
@@ -0,0 +1,163 @@
+package com.lewdev.probabilitylib;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.lewdev.probabilitylib.ProbabilityCollection.ProbabilitySetElement;
+
+public class ImmutableProbabilityCollectionTest {
+
+	@Test
+	public void test_copy() {
+		ProbabilityCollection<String> collection = new ProbabilityCollection<>();
+		collection.add("A", 10);
+		collection.add("B", 20);
+		collection.add("A", 5);
+
+		ImmutableProbabilityCollection<String> immutable = collection.toImmutable();
+		assertEquals(3, immutable.size());
+		assertFalse(immutable.isEmpty());
+		assertEquals(35, immutable.getTotalProbability());
+		assertTrue(immutable.contains("A"));
+		assertFalse(immutable.contains("C"));
+		assertEquals(15, immutable.getProbability("A"));
+		assertEquals(0, immutable.getProbability("C"));
+
+		// Later modifications are not reflected in the copy
+		collection.remove("A");
+		collection.add("C", 100);
+		assertEquals(3, immutable.size());
+		assertEquals(35, immutable.getTotalProbability());
+		assertFalse(immutable.contains("C"));
+
+		int iterated = 0, iteratedProbability = 0;
+		for(Iterator<ProbabilitySetElement<String>> it = immutable.iterator(); it.hasNext(); ) {
+			ProbabilitySetElement<String> entry = it.next();
+			iterated++;
+			iteratedProbability += entry.getProbability();
+		}
+		assertEquals(3, iterated);
+		assertEquals(35, iteratedProbability);
+
+		Iterator<ProbabilitySetElement<String>> it = immutable.iterator();
+		it.next();
+		assertThrows(UnsupportedOperationException.class, () -> {
+			it.remove();
+		});
+	}
+
+	@Test
+	public void test_copy_matches_source() {
+		ProbabilityCollection<Integer> collection = new ProbabilityCollection<>();
+		Random random = new Random(16);
+
+		// Plenty of duplicates, and shares from 1 up to a large part of the total
+		for(int i = 0; i < 10_000; i++) {
+			collection.add(random.nextInt(5_000), random.nextInt(10) == 0 ? 1 + random.nextInt(100_000) : 1 + random.nextInt(10));
+		}
+
+		ImmutableProbabilityCollection<Integer> immutable = collection.toImmutable();
+
+		// Every probability is recovered exactly, in the same order
+		Iterator<ProbabilitySetElement<Integer>> expected = collection.iterator();
+		Iterator<ProbabilitySetElement<Integer>> actual = immutable.iterator();
+		while(expected.hasNext()) {
+			ProbabilitySetElement<Integer> entry = expected.next();
+			ProbabilitySetElement<Integer> copy = actual.next();
+			assertEquals(entry.getObject(), copy.getObject());
+			assertEquals(entry.getProbability(), copy.getProbability());
+		}
+		assertFalse(actual.hasNext());
+
+		for(int object = 0; object < 5_000; object++) {
+			assertEquals(collection.contains(object), immutable.contains(object));
+			assertEquals(collection.getProbability(object), immutable.getProbability(object));
+		}
+	}
+
+	@Test
+	public void test_probability() {
+		ProbabilityCollection<String> collection = new ProbabilityCollection<>();
+
+		collection.add("A", 50);
+		collection.add("B", 25);
+		collection.add("C", 10);
+
+		ImmutableProbabilityCollection<String> immutable = collection.toImmutable();
+
+		List<String> elements = Arrays.asList("A", "B", "C");
+		double[] probabilities = {50, 25, 10};
+
+		GoodnessOfFit.assertFits(probabilities, 1_000_000, () -> elements.indexOf(immutable.get()));
+	}
+
+	@Test
+	public void test_concurrent_get() throws Exception {
+		ProbabilityCollection<String> collection = new ProbabilityCollection<>();
+		collection.add("A", 3);
+		collection.add("B", 1);
+
+		ImmutableProbabilityCollection<String> immutable = collection.toImmutable();
+
+		int readers = 4;
+		int totalGets = 100_000;
+		ExecutorService executor = Executors.newFixedThreadPool(readers);
+
+		try {
+			List<Future<Integer>> futures = new ArrayList<>();
+			for(int i = 0; i < readers; i++) {
+				futures.add(executor.submit(() -> {
+					int a = 0;
+					for(int j = 0; j < totalGets; j++) {
+						if(immutable.get().equals("A")) a++;
+					}
+					return a;
+				}));
+			}
+
+			for(Future<Integer> future : futures) {
+				int a = future.get(10, TimeUnit.SECONDS);
+				GoodnessOfFit.assertFits(new double[] {3, 1}, new long[] {a, totalGets - a});
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void test_Errors() {
+		ImmutableProbabilityCollection<String> immutable = new ProbabilityCollection<String>().toImmutable();
+
+		assertTrue(immutable.isEmpty());
+		assertEquals(0, immutable.getTotalProbability());
+		assertFalse(immutable.iterator().hasNext());
+
+		assertThrows(IllegalStateException.class, () -> {
+			immutable.get();
+		});
+
+		assertThrows(IllegalStateException.class, () -> {
+			immutable.get(new String[1]);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			immutable.get(-1);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			immutable.contains(null);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			immutable.getProbability(null);
+		});
+	}
+}
@@ -0,0 +1,113 @@
+package com.lewdev.probabilitylib;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.lewdev.probabilitylib.LongWeightProbabilityCollection.ProbabilitySetElement;
+
+public class LongWeightProbabilityCollectionTest {
+
+	@Test
+	public void test_insert_remove() {
+		LongWeightProbabilityCollection<String> collection = new LongWeightProbabilityCollection<>();
+		assertEquals(0, collection.size());
+		assertTrue(collection.isEmpty());
+		assertEquals(0, collection.getTotalProbability());
+
+		collection.add("A", 3_000_000_000L);
+		collection.add("B", 2_000_000_000L);
+		collection.add("A", 1);
+		assertTrue(collection.contains("A"));
+		assertEquals(3, collection.size());
+		assertEquals(5_000_000_001L, collection.getTotalProbability());
+
+		Iterator<ProbabilitySetElement<String>> it = collection.iterator();
+		ProbabilitySetElement<String> a = it.next();
+		assertEquals("A", a.getObject());
+		assertEquals(3_000_000_000L, a.getProbability());
+
+		assertTrue(collection.remove("A"));
+		assertFalse(collection.remove("A"));
+		assertFalse(collection.contains("A"));
+		assertEquals(1, collection.size());
+		assertEquals(2_000_000_000L, collection.getTotalProbability());
+
+		collection.clear();
+		assertEquals(0, collection.size());
+		assertTrue(collection.isEmpty());
+		assertEquals(0, collection.getTotalProbability());
+	}
+
+	@Test
+	public void test_probability_past_int() {
+		LongWeightProbabilityCollection<String> collection = new LongWeightProbabilityCollection<>();
+
+		// 50 : 25 : 10, scaled well past Integer.MAX_VALUE
+		long scale = 100_000_000L;
+		collection.add("A", 50 * scale);
+		collection.add("B", 25 * scale);
+		collection.add("C", 10 * scale);
+
+		List<String> elements = Arrays.asList("A", "B", "C");
+		double[] probabilities = {50, 25, 10};
+
+		GoodnessOfFit.assertFits(probabilities, 1_000_000, () -> elements.indexOf(collection.get()));
+	}
+
+	@Test
+	public void test_probability_across_int() {
+		LongWeightProbabilityCollection<String> collection = new LongWeightProbabilityCollection<>();
+
+		// Starts past Integer.MAX_VALUE, then falls back within it
+		collection.add("D", Integer.MAX_VALUE);
+		collection.add("A", 50);
+		collection.add("B", 25);
+		collection.add("C", 10);
+		collection.get();
+		collection.remove("D");
+
+		// The removed object is never selected, indexOf would return -1
+		List<String> elements = Arrays.asList("A", "B", "C");
+		double[] probabilities = {50, 25, 10};
+
+		GoodnessOfFit.assertFits(probabilities, 1_000_000, () -> elements.indexOf(collection.get()));
+	}
+
+	@Test
+	public void test_Errors() {
+		LongWeightProbabilityCollection<String> collection = new LongWeightProbabilityCollection<>();
+
+		assertThrows(IllegalStateException.class, () -> {
+			collection.get();
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.add(null, 1);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.add("A", 0);
+		});
+
+		collection.add("A", Long.MAX_VALUE - 1);
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.add("B", 2);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.remove(null);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.contains(null);
+		});
+
+		assertEquals(1, collection.size());
+		assertEquals(Long.MAX_VALUE - 1, collection.getTotalProbability());
+	}
+}
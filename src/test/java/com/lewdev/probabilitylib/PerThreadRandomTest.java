@@ -0,0 +1,70 @@
+package com.lewdev.probabilitylib;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.*;
+
+import org.junit.jupiter.api.Test;
+
+public class PerThreadRandomTest {
+
+	@Test
+	public void test_bounds() {
+		PerThreadRandom unseeded = new PerThreadRandom();
+		PerThreadRandom seeded = new PerThreadRandom(42);
+
+		for(int i = 0; i < 10_000; i++) {
+			int a = unseeded.applyAsInt(10);
+			int b = seeded.applyAsInt(10);
+			assertTrue(a >= 0 && a < 10);
+			assertTrue(b >= 0 && b < 10);
+		}
+	}
+
+	@Test
+	public void test_seeded_reproducible() throws Exception {
+		PerThreadRandom first = new PerThreadRandom(42);
+		PerThreadRandom second = new PerThreadRandom(42);
+
+		// The first thread to draw gets the same stream from the same seed
+		for(int i = 0; i < 1_000; i++) {
+			assertEquals(first.applyAsInt(1_000_000), second.applyAsInt(1_000_000));
+		}
+
+		// Other threads get a different stream
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			int[] other = executor.submit(() -> {
+				int[] draws = new int[100];
+				for(int i = 0; i < draws.length; i++) {
+					draws[i] = first.applyAsInt(1_000_000);
+				}
+				return draws;
+			}).get(10, TimeUnit.SECONDS);
+
+			PerThreadRandom third = new PerThreadRandom(42);
+			int same = 0;
+			for(int draw : other) {
+				if(draw == third.applyAsInt(1_000_000)) same++;
+			}
+			assertTrue(same < other.length);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void test_seeded_collection() {
+		ConcurrentProbabilityCollection<String> first = new ConcurrentProbabilityCollection<>(7);
+		ConcurrentProbabilityCollection<String> second = new ConcurrentProbabilityCollection<>(7);
+
+		for(String object : new String[] {"A", "B", "C"}) {
+			first.add(object, 10);
+			second.add(object, 10);
+		}
+
+		for(int i = 0; i < 1_000; i++) {
+			assertEquals(first.get(), second.get());
+		}
+	}
+}
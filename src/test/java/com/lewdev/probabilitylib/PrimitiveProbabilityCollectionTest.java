@@ -0,0 +1,140 @@
+package com.lewdev.probabilitylib;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.PrimitiveIterator;
+
+import org.junit.jupiter.api.Test;
+
+public class PrimitiveProbabilityCollectionTest {
+
+	@Test
+	public void test_int_insert_remove() {
+		IntProbabilityCollection collection = new IntProbabilityCollection();
+		assertEquals(0, collection.size());
+		assertTrue(collection.isEmpty());
+		assertEquals(0, collection.getTotalProbability());
+
+		for(int i = 0; i < 100; i++) {
+			collection.add(i % 10, 2);
+
+			assertTrue(collection.contains(i % 10));
+			assertEquals(i + 1, collection.size());
+			assertEquals(2 * (i + 1), collection.getTotalProbability());
+		}
+
+		// Remove all instances
+		assertTrue(collection.remove(5));
+		assertFalse(collection.remove(5));
+		assertFalse(collection.contains(5));
+		assertEquals(90, collection.size());
+		assertEquals(180, collection.getTotalProbability());
+
+		int iterated = 0;
+		for(PrimitiveIterator.OfInt it = collection.iterator(); it.hasNext(); ) {
+			int element = it.nextInt();
+			assertNotEquals(5, element);
+			iterated++;
+
+			if(element == 3) it.remove();
+		}
+		assertEquals(90, iterated);
+		assertFalse(collection.contains(3));
+		assertEquals(80, collection.size());
+		assertEquals(160, collection.getTotalProbability());
+
+		collection.clear();
+		assertEquals(0, collection.size());
+		assertTrue(collection.isEmpty());
+		assertEquals(0, collection.getTotalProbability());
+	}
+
+	@Test
+	public void test_long_insert_remove() {
+		LongProbabilityCollection collection = new LongProbabilityCollection();
+
+		collection.add(Long.MAX_VALUE, 10);
+		collection.add(Long.MIN_VALUE, 20);
+		assertTrue(collection.contains(Long.MAX_VALUE));
+		assertEquals(2, collection.size());
+		assertEquals(30, collection.getTotalProbability());
+
+		assertTrue(collection.remove(Long.MAX_VALUE));
+		assertEquals(1, collection.size());
+		assertEquals(20, collection.getTotalProbability());
+
+		for(int i = 0; i < 100; i++) {
+			assertEquals(Long.MIN_VALUE, collection.getLong());
+		}
+
+		collection.clear();
+		assertTrue(collection.isEmpty());
+		assertFalse(collection.iterator().hasNext());
+	}
+
+	@Test
+	public void test_int_probability() {
+		IntProbabilityCollection collection = new IntProbabilityCollection();
+
+		collection.add(0, 50);
+		collection.add(1, 25);
+		collection.add(2, 10);
+
+		GoodnessOfFit.assertFits(new double[] {50, 25, 10}, 1_000_000, collection::getInt);
+	}
+
+	@Test
+	public void test_bulk_get() {
+		IntProbabilityCollection ints = new IntProbabilityCollection();
+		LongProbabilityCollection longs = new LongProbabilityCollection();
+
+		ints.add(7, 1);
+		ints.add(8, 3);
+		longs.add(7L, 1);
+
+		int[] drawn = ints.getInts(1_000);
+		assertEquals(1_000, drawn.length);
+		for(int element : drawn) {
+			assertTrue(element == 7 || element == 8);
+		}
+
+		long[] out = new long[100];
+		assertSame(out, longs.getLongs(out));
+		for(long element : out) {
+			assertEquals(7L, element);
+		}
+
+		assertEquals(0, ints.getInts(0).length);
+
+		long[] observed = new long[2];
+		for(int element : ints.getInts(1_000_000)) {
+			observed[element - 7]++;
+		}
+		GoodnessOfFit.assertFits(new double[] {1, 3}, observed);
+	}
+
+	@Test
+	public void test_Errors() {
+		IntProbabilityCollection ints = new IntProbabilityCollection();
+		LongProbabilityCollection longs = new LongProbabilityCollection();
+
+		assertThrows(IllegalStateException.class, () -> {
+			ints.getInt();
+		});
+
+		assertThrows(IllegalStateException.class, () -> {
+			longs.getLong();
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			ints.add(1, 0);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			longs.add(1, -1);
+		});
+
+		assertTrue(ints.isEmpty());
+		assertTrue(longs.isEmpty());
+	}
+}
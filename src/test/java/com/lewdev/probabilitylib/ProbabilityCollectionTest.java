@@ -2,9 +2,21 @@ package com.lewdev.probabilitylib;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
 import org.junit.jupiter.api.RepeatedTest;
 import org.junit.jupiter.api.Test;
 
+import com.lewdev.probabilitylib.ProbabilityCollection.ProbabilitySetElement;
+
 /**
  * @author Lewys Davies
  */
@@ -186,7 +198,7 @@ public class ProbabilityCollectionTest {
 		assertTrue(collection.isEmpty());
 	}
 
-	@RepeatedTest(10_000)
+	@Test
 	public void test_probability() {
 		ProbabilityCollection<String> collection = new ProbabilityCollection<>();
 		
@@ -198,31 +210,11 @@ public class ProbabilityCollectionTest {
 		collection.add("B", 25);
 		collection.add("C", 10);
 		
-		int a = 0, b = 0, c = 0;
-
-		int totalGets = 100_000;
-		
-		for(int i = 0; i < totalGets; i++) {
-			String random = collection.get();
-			
-			if(random.equals("A")) a++;
-			else if(random.equals("B")) b++;
-			else if(random.equals("C")) c++;
-		}
+		List<String> elements = Arrays.asList("A", "B", "C");
+		double[] probabilities = {50, 25, 10};
 		
-		double aProb = 50.0 / (double) collection.getTotalProbability() * 100;
-		double bProb = 25.0 / (double) collection.getTotalProbability() * 100;
-		double cProb = 10.0 / (double) collection.getTotalProbability() * 100;
-		
-		double aResult = a / (double) totalGets * 100;
-		double bResult = b / (double) totalGets * 100;
-		double cResult = c / (double) totalGets * 100;
-		
-		double acceptableDeviation = 1; // %
-		
-		assertTrue(Math.abs(aProb - aResult) <= acceptableDeviation);
-		assertTrue(Math.abs(bProb - bResult) <= acceptableDeviation);
-		assertTrue(Math.abs(cProb - cResult) <= acceptableDeviation);
+		// One large sample, checked with chi-square and Kolmogorov-Smirnov tests
+		GoodnessOfFit.assertFits(probabilities, 10_000_000, () -> elements.indexOf(collection.get()));
 	}
 	
 	@RepeatedTest(10_000)
@@ -243,6 +235,589 @@ public class ProbabilityCollectionTest {
 		assertNotNull(collection.get());
 	}
 	
+	@RepeatedTest(1_000)
+	public void test_get_after_modification() {
+		ProbabilityCollection<String> collection = new ProbabilityCollection<>();
+
+		// First get builds the selection table
+		collection.add("A", 10);
+		assertEquals("A", collection.get());
+
+		// Adding must invalidate it
+		collection.add("B", 10);
+		collection.remove("A");
+		for(int i = 0; i < 100; i++) {
+			assertEquals("B", collection.get());
+		}
+
+		// Clearing must invalidate it
+		collection.clear();
+		assertThrows(IllegalStateException.class, () -> {
+			collection.get();
+		});
+
+		collection.add("C", 1);
+		assertEquals("C", collection.get());
+	}
+
+	@Test
+	public void test_iterator() {
+		ProbabilityCollection<String> collection = new ProbabilityCollection<>();
+
+		collection.add("A", 10);
+		collection.add("B", 20);
+		collection.add("C", 30);
+
+		Iterator<ProbabilitySetElement<String>> it = collection.iterator();
+		assertEquals("A", it.next().getObject());
+
+		ProbabilitySetElement<String> b = it.next();
+		assertEquals("B", b.getObject());
+		assertEquals(20, b.getProbability());
+		it.remove();
+
+		assertEquals("C", it.next().getObject());
+		assertFalse(it.hasNext());
+
+		assertEquals(2, collection.size());
+		assertEquals(40, collection.getTotalProbability());
+		assertFalse(collection.contains("B"));
+
+		for(int i = 0; i < 100; i++) {
+			assertNotEquals("B", collection.get());
+		}
+	}
+
+	@Test
+	public void test_bulk_get() {
+		ProbabilityCollection<String> collection = new ProbabilityCollection<>();
+
+		collection.add("A", 50);
+		collection.add("B", 25);
+		collection.add("C", 10);
+
+		assertEquals(0, collection.get(0).size());
+
+		String[] out = new String[10];
+		assertSame(out, collection.get(out));
+		for(String random : out) {
+			assertNotNull(random);
+		}
+
+		List<String> elements = Arrays.asList("A", "B", "C");
+		double[] probabilities = {50, 25, 10};
+
+		int totalGets = 1_000_000;
+		List<String> drawn = collection.get(totalGets);
+		assertEquals(totalGets, drawn.size());
+
+		long[] observed = new long[elements.size()];
+		for(String random : drawn) {
+			observed[elements.indexOf(random)]++;
+		}
+		GoodnessOfFit.assertFits(probabilities, observed);
+	}
+
+	@Test
+	public void test_sample_counts() {
+		ProbabilityCollection<String> collection = new ProbabilityCollection<>();
+
+		collection.add("A", 50);
+		collection.add("B", 25);
+		collection.add("C", 5);
+		collection.add("C", 5);
+
+		long totalGets = 100_000_000;
+
+		Map<String, Long> counts = collection.sampleCounts(totalGets);
+		assertEquals(3, counts.size());
+		assertEquals(totalGets, counts.get("A") + counts.get("B") + counts.get("C"));
+
+		// Duplicates are counted together, so C has both shares
+		GoodnessOfFit.assertFits(new double[] {50, 25, 10}, new long[] {counts.get("A"), counts.get("B"), counts.get("C")});
+
+		Map<String, Long> none = collection.sampleCounts(0);
+		assertEquals(0, (long) none.get("A"));
+		assertEquals(0, (long) none.get("B"));
+		assertEquals(0, (long) none.get("C"));
+	}
+
+	@Test
+	public void test_sample_counts_past_double_precision() {
+		ProbabilityCollection<String> collection = new ProbabilityCollection<>();
+
+		collection.add("A", 1);
+		collection.add("B", 999_999);
+
+		// Far more gets than a double holds exactly, so A's count is split into smaller draws
+		long totalGets = Long.MAX_VALUE;
+		double p = 1e-6;
+		double mean = totalGets * p;
+		double variance = totalGets * p * (1 - p);
+
+		int draws = 1_000;
+		double sum = 0;
+		double sumOfSquares = 0;
+
+		for(int i = 0; i < draws; i++) {
+			Map<String, Long> counts = collection.sampleCounts(totalGets);
+			assertEquals(totalGets, counts.get("A") + counts.get("B"));
+
+			double deviation = counts.get("A") - mean;
+			sum += deviation;
+			sumOfSquares += deviation * deviation;
+		}
+
+		// Mean within 5 standard errors, variance within 20%
+		double meanDeviation = sum / draws;
+		assertEquals(0, meanDeviation / Math.sqrt(variance / draws), 5);
+		assertEquals(1, (sumOfSquares / draws - meanDeviation * meanDeviation) / variance, 0.2);
+	}
+
+	@Test
+	public void test_get_distinct() {
+		ProbabilityCollection<String> collection = new ProbabilityCollection<>();
+
+		collection.add("A", 50);
+		collection.add("B", 25);
+		collection.add("C", 5);
+		collection.add("C", 5);
+
+		List<String> elements = Arrays.asList("A", "B", "C");
+		long[] first = new long[3];
+		long[] secondAfterA = new long[3];
+
+		int totalGets = 1_000_000;
+
+		for(int i = 0; i < totalGets; i++) {
+			List<String> distinct = collection.getDistinct(2);
+			assertEquals(2, distinct.size());
+			assertNotEquals(distinct.get(0), distinct.get(1));
+
+			int firstIndex = elements.indexOf(distinct.get(0));
+			first[firstIndex]++;
+			if(firstIndex == 0) {
+				secondAfterA[elements.indexOf(distinct.get(1))]++;
+			}
+		}
+
+		// The first object is an ordinary get
+		GoodnessOfFit.assertFits(new double[] {50, 25, 10}, first);
+
+		// The second is a get after the first was removed, every instance of it
+		GoodnessOfFit.assertFits(new double[] {0, 25, 10}, secondAfterA);
+
+		// Never more objects than are in the collection, and never modified
+		assertEquals(3, collection.getDistinct(10).size());
+		assertEquals(0, collection.getDistinct(0).size());
+		assertEquals(4, collection.size());
+		assertEquals(85, collection.getTotalProbability());
+	}
+
+	@Test
+	public void test_weighted_shuffle() {
+		ProbabilityCollection<String> collection = new ProbabilityCollection<>();
+
+		collection.add("A", 50);
+		collection.add("B", 25);
+		collection.add("C", 10);
+
+		List<String> elements = Arrays.asList("A", "B", "C");
+		long[] first = new long[3];
+		long[] last = new long[3];
+
+		int totalGets = 1_000_000;
+		String[] out = new String[3];
+
+		for(int i = 0; i < totalGets; i++) {
+			assertSame(out, collection.weightedShuffle(out));
+			assertEquals(3, new HashSet<>(Arrays.asList(out)).size());
+
+			first[elements.indexOf(out[0])]++;
+			last[elements.indexOf(out[2])]++;
+		}
+
+		GoodnessOfFit.assertFits(new double[] {50, 25, 10}, first);
+
+		// An object is last when the other two are selected first, in either order
+		double[] lastProbabilities = {
+				25.0 / 85 * 10.0 / 60 + 10.0 / 85 * 25.0 / 75,
+				50.0 / 85 * 10.0 / 35 + 10.0 / 85 * 50.0 / 75,
+				50.0 / 85 * 25.0 / 35 + 25.0 / 85 * 50.0 / 60
+		};
+		GoodnessOfFit.assertFits(lastProbabilities, last);
+
+		// Duplicates are kept, and the collection is not modified
+		collection.add("C", 10);
+		assertEquals(4, collection.weightedShuffle().size());
+		assertEquals(4, collection.size());
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.weightedShuffle(new String[3]);
+		});
+	}
+
+	@Test
+	public void test_set_probability() {
+		ProbabilityCollection<String> collection = new ProbabilityCollection<>();
+
+		collection.add("A", 10);
+		collection.add("B", 20);
+		collection.add("C", 30);
+
+		// Updated in place, keeping its position
+		collection.setProbability("A", 15);
+		assertEquals(3, collection.size());
+		assertEquals(65, collection.getTotalProbability());
+		ProbabilitySetElement<String> first = collection.iterator().next();
+		assertEquals("A", first.getObject());
+		assertEquals(15, first.getProbability());
+
+		collection.addProbability("B", -5);
+		collection.addProbability("C", 5);
+		assertEquals(65, collection.getTotalProbability());
+
+		// Added when missing, removed at 0
+		collection.addProbability("D", 5);
+		assertTrue(collection.contains("D"));
+		assertEquals(70, collection.getTotalProbability());
+
+		collection.setProbability("D", 0);
+		assertFalse(collection.contains("D"));
+		assertEquals(3, collection.size());
+		assertEquals(65, collection.getTotalProbability());
+
+		// Duplicates are merged into the first instance
+		collection.add("A", 5);
+		collection.addProbability("A", 1);
+		assertEquals(3, collection.size());
+		assertEquals(71, collection.getTotalProbability());
+		assertEquals(21, collection.iterator().next().getProbability());
+
+		// Selection follows the new shares
+		collection.setProbability("A", 1000);
+		int a = 0;
+		for(int i = 0; i < 10_000; i++) {
+			if(collection.get().equals("A")) a++;
+		}
+		assertTrue(a > 9_000);
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.setProbability("A", -1);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.addProbability("B", -16);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.setProbability(null, 1);
+		});
+
+		assertEquals(1050, collection.getTotalProbability());
+	}
+
+	@Test
+	public void test_set_probability_unchanged_on_error() {
+		ProbabilityCollection<String> collection = new ProbabilityCollection<>();
+
+		collection.add("A", 10);
+		collection.add("B", 20);
+		collection.add("A", 5);
+		collection.add("C", 30);
+
+		// A is 15 combined, so neither change is valid, and the duplicates must not be merged
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.addProbability("A", -16);
+		});
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.setProbability("A", Integer.MAX_VALUE - 40);
+		});
+
+		List<String> order = new ArrayList<>();
+		for(Iterator<ProbabilitySetElement<String>> it = collection.iterator(); it.hasNext(); ) {
+			order.add(it.next().getObject());
+		}
+		assertEquals(Arrays.asList("A", "B", "A", "C"), order);
+		assertEquals(15, collection.getProbability("A"));
+		assertEquals(65, collection.getTotalProbability());
+
+		// Without duplicates, the object keeps its place
+		collection.remove("A");
+		collection.add("A", 15);
+		collection.setProbability("B", 25);
+		order.clear();
+		for(Iterator<ProbabilitySetElement<String>> it = collection.iterator(); it.hasNext(); ) {
+			order.add(it.next().getObject());
+		}
+		assertEquals(Arrays.asList("C", "B", "A"), order);
+	}
+
+	@Test
+	public void test_get_probability() {
+		ProbabilityCollection<String> collection = new ProbabilityCollection<>();
+
+		assertEquals(0, collection.getProbability("A"));
+
+		collection.add("A", 10);
+		collection.add("B", 20);
+		collection.add("A", 5);
+		assertEquals(15, collection.getProbability("A"));
+		assertEquals(20, collection.getProbability("B"));
+
+		collection.remove("A");
+		assertEquals(0, collection.getProbability("A"));
+		assertEquals(20, collection.getProbability("B"));
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.getProbability(null);
+		});
+	}
+
+	@RepeatedTest(10)
+	public void test_index_matches_contents() {
+		ProbabilityCollection<Integer> collection = new ProbabilityCollection<>();
+		Map<Integer, Integer> expected = new HashMap<>();
+		Random random = new Random();
+
+		// Random adds, removes and updates, with plenty of duplicates
+		for(int i = 0; i < 10_000; i++) {
+			int object = random.nextInt(100);
+			int action = random.nextInt(4);
+
+			if(action == 0) {
+				assertEquals(expected.remove(object) != null, collection.remove(object));
+			} else if(action == 1) {
+				int probability = random.nextInt(5);
+				collection.setProbability(object, probability);
+				if(probability == 0) expected.remove(object);
+				else expected.put(object, probability);
+			} else {
+				collection.add(object, 1 + action);
+				expected.merge(object, 1 + action, Integer::sum);
+			}
+		}
+
+		Map<Integer, Integer> iterated = new HashMap<>();
+		for(Iterator<ProbabilitySetElement<Integer>> it = collection.iterator(); it.hasNext(); ) {
+			ProbabilitySetElement<Integer> entry = it.next();
+			iterated.merge(entry.getObject(), entry.getProbability(), Integer::sum);
+		}
+		assertEquals(expected, iterated);
+
+		int totalProbability = 0;
+		for(int object = 0; object < 100; object++) {
+			assertEquals(expected.containsKey(object), collection.contains(object));
+			assertEquals(expected.getOrDefault(object, 0).intValue(), collection.getProbability(object));
+			totalProbability += collection.getProbability(object);
+		}
+		assertEquals(totalProbability, collection.getTotalProbability());
+	}
+
+	// Equal by id, but only a few distinct hash codes, so many objects share slots of the index
+	private static final class Colliding {
+		private final int id;
+
+		Colliding(int id) {
+			this.id = id;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Colliding && ((Colliding) other).id == this.id;
+		}
+
+		@Override
+		public int hashCode() {
+			return this.id % 3;
+		}
+	}
+
+	@RepeatedTest(10)
+	public void test_index_with_colliding_hashes() {
+		ProbabilityCollection<Colliding> collection = new ProbabilityCollection<>();
+		Map<Integer, Integer> expected = new HashMap<>();
+		Random random = new Random();
+
+		for(int i = 0; i < 5_000; i++) {
+			int id = random.nextInt(200);
+			if(random.nextInt(3) == 0) {
+				assertEquals(expected.remove(id) != null, collection.remove(new Colliding(id)));
+			} else {
+				collection.add(new Colliding(id), 1 + id % 4);
+				expected.merge(id, 1 + id % 4, Integer::sum);
+			}
+		}
+
+		for(int id = 0; id < 200; id++) {
+			assertEquals(expected.containsKey(id), collection.contains(new Colliding(id)));
+			assertEquals(expected.getOrDefault(id, 0).intValue(), collection.getProbability(new Colliding(id)));
+		}
+	}
+
+	@Test
+	public void test_add_all() {
+		ProbabilityCollection<String> collection = new ProbabilityCollection<>();
+		collection.add("A", 10);
+
+		Map<String, Integer> map = new LinkedHashMap<>();
+		map.put("B", 20);
+		map.put("C", 30);
+		collection.addAll(map);
+
+		// Past the initial capacity, so the arrays must grow
+		String[] objects = new String[20];
+		int[] probabilities = new int[20];
+		Arrays.fill(objects, "D");
+		Arrays.fill(probabilities, 2);
+		collection.addAll(objects, probabilities);
+
+		assertEquals(23, collection.size());
+		assertEquals(100, collection.getTotalProbability());
+		assertEquals(20, collection.getProbability("B"));
+		assertEquals(40, collection.getProbability("D"));
+
+		// Nothing is added if any entry is invalid
+		map.put("E", 0);
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.addAll(map);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.addAll(new String[] { "E", null }, new int[] { 1, 1 });
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.addAll(new String[] { "E" }, new int[] { 1, 1 });
+		});
+
+		assertFalse(collection.contains("E"));
+		assertEquals(23, collection.size());
+		assertEquals(100, collection.getTotalProbability());
+	}
+
+	@Test
+	public void test_builder() {
+		Map<String, Integer> map = new LinkedHashMap<>();
+		map.put("B", 25);
+		map.put("C", 10);
+
+		ProbabilityCollection.Builder<String> builder = ProbabilityCollection.<String>builder(3)
+				.seed(42)
+				.add("A", 50)
+				.addAll(map);
+
+		ProbabilityCollection<String> collection = builder.build();
+		assertEquals(3, collection.size());
+		assertEquals(85, collection.getTotalProbability());
+		assertTrue(collection.contains("A"));
+		assertEquals(25, collection.getProbability("B"));
+
+		// The builder is left empty, and does not share arrays with the collection
+		ProbabilityCollection<String> empty = builder.build();
+		assertTrue(empty.isEmpty());
+		empty.add("D", 1);
+		assertFalse(collection.contains("D"));
+
+		// Collections built from the same seed select the same objects
+		ProbabilityCollection<String> same = ProbabilityCollection.<String>builder()
+				.seed(42)
+				.addAll(new String[] { "A", "B", "C" }, new int[] { 50, 25, 10 })
+				.build();
+		for(int i = 0; i < 1_000; i++) {
+			assertEquals(collection.get(), same.get());
+		}
+
+		// Built collections can still be modified
+		collection.add("E", 15);
+		collection.remove("A");
+		assertEquals(3, collection.size());
+		assertEquals(50, collection.getTotalProbability());
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			ProbabilityCollection.builder(-1);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			ProbabilityCollection.<String>builder().add(null, 1);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			ProbabilityCollection.<String>builder().add("A", 0);
+		});
+	}
+
+	@Test
+	public void test_total_overflow() {
+		ProbabilityCollection<String> collection = new ProbabilityCollection<>();
+		collection.add("A", Integer.MAX_VALUE - 1);
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.add("B", 2);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.addProbability("A", 2);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.addAll(new String[] { "B", "C" }, new int[] { 1, 1 });
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			ProbabilityCollection.<String>builder().add("A", Integer.MAX_VALUE).add("B", 1);
+		});
+
+		// Still usable, and exactly Integer.MAX_VALUE fits
+		collection.add("B", 1);
+		assertEquals(2, collection.size());
+		assertEquals(Integer.MAX_VALUE, collection.getTotalProbability());
+		assertNotNull(collection.get());
+	}
+
+	@Test
+	public void test_sampling_strategy() {
+		for(SamplingStrategy strategy : SamplingStrategy.values()) {
+			ProbabilityCollection<String> collection = ProbabilityCollection.<String>builder()
+					.samplingStrategy(strategy)
+					.seed(42)
+					.addAll(new String[] { "A", "B", "C", "A" }, new int[] { 50, 25, 10, 5 })
+					.build();
+
+			// The same seed and strategy select the same objects
+			ProbabilityCollection<String> same = new ProbabilityCollection<>(42, strategy);
+			same.addAll(new String[] { "A", "B", "C", "A" }, new int[] { 50, 25, 10, 5 });
+			for(int i = 0; i < 1_000; i++) {
+				assertEquals(collection.get(), same.get());
+			}
+
+			// Duplicates merged, then removed, in place
+			collection.setProbability("A", 0);
+			collection.remove("B");
+			for(int i = 0; i < 1_000; i++) {
+				assertEquals("C", collection.get());
+			}
+
+			collection.add("D", 1_000_000);
+			collection.setProbability("C", 0);
+			for(int i = 0; i < 1_000; i++) {
+				assertEquals("D", collection.get());
+			}
+
+			collection.clear();
+			collection.add("E", 1);
+			assertEquals("E", collection.get());
+		}
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			new ProbabilityCollection<String>((SamplingStrategy) null);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			ProbabilityCollection.<String>builder().samplingStrategy(null);
+		});
+	}
+
 	@Test
 	public void test_Errors() {
 		ProbabilityCollection<String> collection = new ProbabilityCollection<>();
@@ -287,6 +862,20 @@ public class ProbabilityCollectionTest {
 		assertTrue(collection.isEmpty());
 		assertEquals(0, collection.getTotalProbability());
 		
+		// Cannot bulk get from empty collection
+		assertThrows(IllegalStateException.class, () -> {
+			collection.get(10);
+		});
+
+		// Cannot bulk get a negative count
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.get(-1);
+		});
+
+		assertEquals(0, collection.size());
+		assertTrue(collection.isEmpty());
+		assertEquals(0, collection.getTotalProbability());
+
 		// Cannot contains null
 		assertThrows(IllegalArgumentException.class, () -> {
 			collection.contains(null);
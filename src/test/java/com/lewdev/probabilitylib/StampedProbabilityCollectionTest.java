@@ -0,0 +1,126 @@
+package com.lewdev.probabilitylib;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+public class StampedProbabilityCollectionTest {
+
+	@Test
+	public void test_insert_remove() {
+		StampedProbabilityCollection<String> collection = new StampedProbabilityCollection<>();
+		assertEquals(0, collection.size());
+		assertTrue(collection.isEmpty());
+		assertEquals(0, collection.getTotalProbability());
+
+		for(int i = 0; i < 10; i++) {
+			collection.add("Hello", 10);
+			collection.add("World", 10);
+		}
+
+		assertTrue(collection.contains("Hello"));
+		assertEquals(20, collection.size());
+		assertEquals(200, collection.getTotalProbability());
+
+		assertTrue(collection.remove("Hello"));
+		assertFalse(collection.contains("Hello"));
+		assertEquals(10, collection.size());
+		assertEquals(100, collection.getTotalProbability());
+
+		int iterated = 0;
+		for(Iterator<?> it = collection.iterator(); it.hasNext(); it.next()) {
+			iterated++;
+		}
+		assertEquals(10, iterated);
+
+		collection.clear();
+		assertTrue(collection.isEmpty());
+		assertEquals(0, collection.getTotalProbability());
+	}
+
+	@Test
+	public void test_probability() {
+		StampedProbabilityCollection<String> collection = new StampedProbabilityCollection<>();
+
+		collection.add("A", 50);
+		collection.add("B", 25);
+		collection.add("C", 10);
+
+		List<String> elements = Arrays.asList("A", "B", "C");
+		double[] probabilities = {50, 25, 10};
+
+		GoodnessOfFit.assertFits(probabilities, 1_000_000, () -> elements.indexOf(collection.get()));
+	}
+
+	@Test
+	public void test_concurrent_get() throws Exception {
+		StampedProbabilityCollection<String> collection = new StampedProbabilityCollection<>();
+		collection.add("A", 1);
+
+		int readers = 4;
+		ExecutorService executor = Executors.newFixedThreadPool(readers);
+		AtomicBoolean writing = new AtomicBoolean(true);
+
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for(int i = 0; i < readers; i++) {
+				futures.add(executor.submit(() -> {
+					while(writing.get()) {
+						String random = collection.get();
+						assertTrue(random.equals("A") || random.startsWith("B"));
+					}
+				}));
+			}
+
+			// Grow, shrink and reuse slots while readers are selecting, "A" is always present
+			for(int i = 0; i < 10_000; i++) {
+				collection.add("B" + (i % 100), 1 + i % 5);
+				if(i % 3 == 0) collection.remove("B" + (i % 50));
+			}
+			writing.set(false);
+
+			for(Future<?> future : futures) {
+				future.get(10, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertTrue(collection.contains("A"));
+	}
+
+	@Test
+	public void test_Errors() {
+		StampedProbabilityCollection<String> collection = new StampedProbabilityCollection<>();
+
+		assertThrows(IllegalStateException.class, () -> {
+			collection.get();
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.add(null, 1);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.add("A", 0);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.remove(null);
+		});
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			collection.contains(null);
+		});
+
+		assertTrue(collection.isEmpty());
+		assertEquals(0, collection.getTotalProbability());
+	}
+}